@@ -0,0 +1,447 @@
+// =============================================================================
+/**
+ * The <code>ArrayEngine</code> class.  Evolve a universe held as two flat
+ * arrays of bytes, one cell per byte in row-major order:  one for the current
+ * generation and one for the next.  A generation is committed by swapping the
+ * two arrays, so there is no per-cell copy and no per-cell method call.
+ *
+ * Each array has a border of ghost cells one cell wide around the universe,
+ * so that every cell has eight neighbors in the array and the neighbor sum
+ * needs no bounds checks.  In a bounded universe the ghost cells stay dead;
+ * in a toroidal one, they are refilled before each generation with copies of
+ * the cells on the opposite edges, so that the universe wraps around.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class ArrayEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells, evolved by
+     * a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public ArrayEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), false, Rule.CONWAY);
+
+    } // ArrayEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead
+     * cells, evolved in parallel bands of rows by the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param toroidal Whether the edges of the universe wrap around to meet
+     *                 the opposite edges.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public ArrayEngine (int rows, int columns, Bands bands, boolean toroidal,
+                        Rule rule) {
+
+        // Ensure that the sizes are valid, and that the cells and their
+        // border fit in one array.
+        if ((rows <= 0) || (columns <= 0) ||
+            ((long)(rows + 2) * (columns + 2) > Integer.MAX_VALUE - 8)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+
+        _rows     = rows;
+        _columns  = columns;
+        _stride   = columns + 2;
+        _current  = new byte[(rows + 2) * _stride];
+        _next     = new byte[(rows + 2) * _stride];
+        _bands    = bands;
+        _toroidal = toroidal;
+        _rule     = rule.getSumMask();
+        _births   = new int[rows];
+        _deaths   = new int[rows];
+
+    } // ArrayEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return _current[index(row, column)] != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle by summing each row's cells, which
+     * are 1 when alive.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        long count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            int start = index(row, left);
+            int sum   = 0;
+            for (int i = start; i < start + columns; i += 1) {
+                sum += _current[i];
+            }
+            count += sum;
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        int index = index(row, column);
+        if (_current[index] == 0) {
+            _population += 1;
+        }
+        _current[index] = 1;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation into the second array.  Each band of
+     * rows reads only the current generation and writes only its own rows of
+     * the next.
+     **/
+    public void evolve () {
+
+        if (_toroidal) {
+            wrapBorder();
+        }
+
+        _bands.run(_rows, (first, last) -> {
+                for (int row = first; row < last; row += 1) {
+                    evolveRow(row);
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int row = 0; row < _rows; row += 1) {
+            births += _births[row];
+            deaths += _deaths[row];
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy the cells along each edge into the ghost cells beyond the
+     * opposite edge, corners included.
+     **/
+    private void wrapBorder () {
+
+        int last = _rows * _stride;
+        System.arraycopy(_current, last, _current, 0, _stride);
+        System.arraycopy(_current, _stride, _current, last + _stride, _stride);
+        for (int row = 0; row < _rows + 2; row += 1) {
+            int start = row * _stride;
+            _current[start]                = _current[start + _columns];
+            _current[start + _columns + 1] = _current[start + 1];
+        }
+
+    } // wrapBorder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of one row.  Thanks to the border of ghost
+     * cells, the loop over the row reads its neighbors without any checks.
+     *
+     * @param row The row to evolve.
+     **/
+    private void evolveRow (int row) {
+
+        int above  = row * _stride;
+        int middle = above  + _stride;
+        int below  = middle + _stride;
+
+        // Keep a running sum of the three cells in each of the last three
+        // columns, so that each column is read only once.
+        int west   = _current[above] + _current[middle] + _current[below];
+        int center = _current[above + 1] +
+                     _current[middle + 1] +
+                     _current[below + 1];
+        int rule   = _rule;
+        int births = 0;
+        int deaths = 0;
+        for (int column = 1; column <= _columns; column += 1) {
+
+            int east = _current[above  + column + 1] +
+                       _current[middle + column + 1] +
+                       _current[below  + column + 1];
+
+            // The sum includes the cell itself; look up the fate of a cell
+            // with this sum, alive or dead, in the bits of the rule.
+            int alive = _current[middle + column];
+            int sum   = west + center + east;
+            int next  = (rule >>> (alive * 10 + sum)) & 1;
+
+            _next[middle + column] = (byte)next;
+            births += next & ~alive;
+            deaths += alive & ~next;
+
+            west   = center;
+            center = east;
+
+        }
+
+        _births[row] = births;
+        _deaths[row] = deaths;
+
+    } // evolveRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the next generation by swapping the two arrays.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges();
+        }
+
+        byte[] swap = _current;
+        _current = _next;
+        _next = swap;
+
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about every cell that differs between the current and
+     * next generations.  Only the rows with a birth or death are examined.
+     **/
+    private void reportChanges () {
+
+        for (int row = 0; row < _rows; row += 1) {
+            if ((_births[row] != 0) || (_deaths[row] != 0)) {
+                int start = index(row, 0);
+                for (int column = 0; column < _columns; column += 1) {
+                    byte next = _next[start + column];
+                    if (next != _current[start + column]) {
+                        _listener.cellChanged(row, column, next != 0);
+                    }
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find a cell in the arrays, past the border of ghost cells.
+     **/
+    private int index (int row, int column) {
+
+        return (row + 1) * _stride + column + 1;
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The rule, as one bit for each sum of a cell and its neighbors:  bit
+     * <i>s</i> for a dead cell, and bit 10 + <i>s</i> for a live one.  Under
+     * the Conway rules, a dead cell is born with a sum of 3, and a live one
+     * survives with a sum of 3 or 4.
+     **/
+    private final int _rule;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The distance between rows in the arrays, including the ghost cells.
+     **/
+    private final int _stride;
+
+    /**
+     * Whether the edges wrap around to meet the opposite edges.
+     **/
+    private final boolean _toroidal;
+
+    /**
+     * The current generation, 1 for a live cell and 0 for a dead one, with
+     * a border of ghost cells.
+     **/
+    private byte[] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private byte[] _next;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The number of cells born in each row, for the bands to fill in without
+     * sharing a counter.
+     **/
+    private final int[] _births;
+
+    /**
+     * The number of cells that die in each row.
+     **/
+    private final int[] _deaths;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ArrayEngine
+// =============================================================================
@@ -0,0 +1,184 @@
+// =============================================================================
+/**
+ * The <code>Bands</code> class.  Split a range of rows into bands and process
+ * the bands in parallel on a fork/join pool.  With a single thread, the whole
+ * range is processed directly by the calling thread.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Bands {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The work to be done on one band of rows.
+     **/
+    public interface Body {
+
+        /**
+         * Process the rows from <code>first</code> up to, but not including,
+         * <code>last</code>.
+         *
+         * @param first The first row of the band.
+         * @param last The row just past the end of the band.
+         **/
+        public void run (int first, int last);
+
+    } // interface Body
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param threads The number of threads to use; at least 1.
+     **/
+    public Bands (int threads) {
+
+        if (threads <= 0) {
+            Support.abort("ERROR: The number of threads must be positive: " +
+                          threads);
+        }
+
+        _threads = threads;
+        _pool    = (threads == 1) ? null : new ForkJoinPool(threads);
+
+    } // Bands ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of threads.
+     *
+     * @return The number of threads that process bands.
+     **/
+    public int getThreads () {
+
+        return _threads;
+
+    } // getThreads ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Process every row, returning only once all bands are done.
+     *
+     * @param rows The number of rows to process.
+     * @param body The work to apply to each band.
+     **/
+    public void run (int rows, Body body) {
+
+        if ((_pool == null) || (rows <= 1)) {
+            body.run(0, rows);
+            return;
+        }
+
+        // Cut a few more bands than threads so that uneven bands balance out.
+        int grain = Math.max(1, rows / (_threads * _bandsPerThread));
+        _pool.invoke(new Task(body, 0, rows, grain));
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Stop the pool's threads once no more bands are to be run.  A game
+     * that is done should close its bands, or its threads linger until the
+     * JVM exits.
+     **/
+    public void close () {
+
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A fork/join task that halves its range until it is small enough.
+     **/
+    private static class Task extends RecursiveAction {
+
+        Task (Body body, int first, int last, int grain) {
+
+            _body  = body;
+            _first = first;
+            _last  = last;
+            _grain = grain;
+
+        } // Task ()
+
+        protected void compute () {
+
+            if (_last - _first <= _grain) {
+                _body.run(_first, _last);
+            } else {
+                int middle = (_first + _last) >>> 1;
+                invokeAll(new Task(_body, _first, middle, _grain),
+                          new Task(_body, middle, _last,  _grain));
+            }
+
+        } // compute ()
+
+        private final static long serialVersionUID = 1L;
+
+        private final Body _body;
+        private final int  _first;
+        private final int  _last;
+        private final int  _grain;
+
+    } // class Task
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of threads.
+     **/
+    private final int _threads;
+
+    /**
+     * The pool that runs the bands, or <code>null</code> for one thread.
+     **/
+    private final ForkJoinPool _pool;
+
+    /**
+     * How many bands to cut for each thread.
+     **/
+    private final static int _bandsPerThread = 4;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Bands
+// =============================================================================
@@ -0,0 +1,298 @@
+// =============================================================================
+/**
+ * The <code>BatchRunner</code> class.  Play many games in one JVM, several
+ * at a time, so that a sweep over many initial states pays for JVM startup
+ * and JIT warmup only once.
+ *
+ * The games come from a directory, whose <code>.init</code> files are each
+ * played for the same number of generations, or from a manifest, each line
+ * of which names an initial-state or checkpoint file and, optionally, its
+ * own number of generations.  Relative pathnames in a manifest are resolved
+ * against the manifest's directory; blank lines and lines starting with
+ * <code>#</code> are ignored.
+ *
+ * The games run on a fixed pool of <code>batch.games</code> threads.  Each
+ * game is loaded only when a thread takes it up and dropped when it is done,
+ * so no more than that many universes are in memory at once.  Each finished
+ * game prints one line:  its pathname, generations, final population, and
+ * wall time from the start of loading to the end of play.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+// =============================================================================
+
+
+
+// =============================================================================
+public class BatchRunner {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Gather the games to play.
+     *
+     * @param source A directory of <code>.init</code> files, or a manifest.
+     * @param generations The number of generations for each game that does
+     *                    not give its own.
+     * @param options The settings shared by every game, including
+     *                <code>batch.games</code>, the number of games played at
+     *                once.
+     * @throws IOException If the directory or manifest cannot be read, or if
+     *                     a line of the manifest is malformed.
+     **/
+    public BatchRunner (String source, long generations, Options options)
+        throws IOException {
+
+        // Checkpoints and recordings of concurrent games would overwrite
+        // one another.
+        if (options.has("checkpoint.file")) {
+            Support.abort("ERROR: checkpoint.file cannot be used with Batch");
+        }
+        if (options.has("delta.file")) {
+            Support.abort("ERROR: delta.file cannot be used with Batch");
+        }
+
+        _options = options;
+        _games   = options.getInt("batch.games",
+                                  Runtime.getRuntime().availableProcessors());
+        if (_games <= 0) {
+            Support.abort("ERROR: batch.games must be positive: " + _games);
+        }
+
+        _paths       = new ArrayList<String>();
+        _generations = new ArrayList<Long>();
+        Path path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            readDirectory(path, generations);
+        } else {
+            readManifest(path, generations);
+        }
+
+    } // BatchRunner ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Gather every <code>.init</code> file in a directory, in order by name.
+     **/
+    private void readDirectory (Path directory, long generations)
+        throws IOException {
+
+        List<String> paths = new ArrayList<String>();
+        try (DirectoryStream<Path> files =
+                 Files.newDirectoryStream(directory, "*.init")) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    paths.add(file.toString());
+                }
+            }
+        }
+        Collections.sort(paths);
+
+        for (String path : paths) {
+            _paths.add(path);
+            _generations.add(generations);
+        }
+
+    } // readDirectory ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Gather the games named in a manifest.
+     **/
+    private void readManifest (Path manifest, long generations)
+        throws IOException {
+
+        List<String> lines = null;
+        try {
+            lines = Files.readAllLines(manifest);
+        } catch (NoSuchFileException e) {
+            throw new IOException("File not found: " + manifest);
+        }
+
+        Path base = manifest.getParent();
+        for (int i = 0; i < lines.size(); i += 1) {
+
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+            long     count  = generations;
+            if (fields.length > 2) {
+                throw new IOException("Invalid game at line " + (i + 1) +
+                                      " of " + manifest);
+            }
+            if (fields.length == 2) {
+                try {
+                    count = Long.parseLong(fields[1]);
+                } catch (NumberFormatException e) {
+                    count = -1;
+                }
+                if (count < 0) {
+                    throw new IOException("Invalid generations at line " +
+                                          (i + 1) + " of " + manifest);
+                }
+            }
+
+            _paths.add((base == null) ? fields[0]
+                                      : base.resolve(fields[0]).toString());
+            _generations.add(count);
+
+        }
+
+    } // readManifest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play every game, <code>batch.games</code> at a time, printing each
+     * game's line as it finishes and a total once all are done.
+     *
+     * @return The number of games that could not be played.
+     **/
+    public int run () {
+
+        long          start  = System.nanoTime();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(_games);
+        for (int game = 0; game < _paths.size(); game += 1) {
+            String path        = _paths.get(game);
+            long   generations = _generations.get(game);
+            executor.execute(() -> {
+                    if (!play(path, generations)) {
+                        failed.incrementAndGet();
+                    }
+                });
+        }
+
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+                // Keep waiting; the games take as long as they take.
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.printf("Games = %d, Failed = %d, Seconds = %.3f%n",
+                          _paths.size(),
+                          failed.get(),
+                          (System.nanoTime() - start) / 1e9);
+
+        return failed.get();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Load and play one game, and print its line.  A game that cannot be
+     * read, or that does not fit in memory, is reported and skipped.
+     *
+     * @param path The initial-state or checkpoint file.
+     * @param generations The number of generations to play.
+     * @return <code>true</code> if the game was played.
+     **/
+    private boolean play (String path, long generations) {
+
+        long start = System.nanoTime();
+        Game game  = null;
+        try {
+            game = new Game(path, _options);
+            game.play(generations, _silent);
+            System.out.printf("%s: Generations = %d, Population = %d, " +
+                              "Seconds = %.3f%n",
+                              path,
+                              game.getGeneration(),
+                              game.getPopulation(),
+                              (System.nanoTime() - start) / 1e9);
+            return true;
+        } catch (IOException e) {
+            System.out.println(path + ": FAILED: " + e.getMessage());
+        } catch (OutOfMemoryError e) {
+            System.out.println(path + ": FAILED: Out of memory; lower " +
+                               "batch.games or raise -Xmx");
+        } finally {
+            if (game != null) {
+                game.close();
+            }
+        }
+
+        return false;
+
+    } // play ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * An interface that shows nothing and never waits.
+     **/
+    private final static UserInterface _silent = new UserInterface() {
+            public void display () {
+            }
+            public void triggerMove () {
+            }
+        };
+
+    /**
+     * The settings shared by every game.
+     **/
+    private final Options _options;
+
+    /**
+     * The number of games played at once.
+     **/
+    private final int _games;
+
+    /**
+     * The initial-state or checkpoint file of each game.
+     **/
+    private final List<String> _paths;
+
+    /**
+     * The number of generations to play each game.
+     **/
+    private final List<Long> _generations;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BatchRunner
+// =============================================================================
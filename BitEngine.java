@@ -0,0 +1,697 @@
+// =============================================================================
+/**
+ * The <code>BitEngine</code> class.  Evolve a universe held as packed bits,
+ * one bit per cell, with each row stored as an array of <code>long</code>
+ * words.  The next generation is calculated with bitwise adder logic, so that
+ * each operation handles the 64 cells of a word at once.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class BitEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells, evolved by
+     * a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public BitEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), Rule.CONWAY);
+
+    } // BitEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead
+     * cells, evolved in parallel bands of rows by the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public BitEngine (int rows, int columns, Bands bands, Rule rule) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+
+        _rows     = rows;
+        _columns  = columns;
+        _words    = (columns + 63) >>> 6;
+        _current  = new long[rows][_words];
+        _next     = new long[rows][_words];
+        _empty    = new long[_words];
+        _bands    = bands;
+        _rule     = rule;
+
+        // Every tile starts out as changed, so that all of them are evolved
+        // in the first generation.
+        _tileRows    = (rows + TILE_ROWS - 1) / TILE_ROWS;
+        _changed     = new boolean[_tileRows][_words];
+        _nextChanged = new boolean[_tileRows][_words];
+        _tilePopulation     = new int[_tileRows][_words];
+        _nextTilePopulation = new int[_tileRows][_words];
+        _births      = new long[_tileRows];
+        _deaths      = new long[_tileRows];
+        for (int tileRow = 0; tileRow < _tileRows; tileRow += 1) {
+            Arrays.fill(_changed[tileRow], true);
+        }
+
+        // Keep only the bits of the last word that hold real columns.
+        _lastMask = ((columns & 63) == 0) ? -1L : (1L << (columns & 63)) - 1;
+
+    } // BitEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return ((_current[row][column >>> 6] >>> column) & 1L) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        long[] words = _current[row];
+        if (((words[column >>> 6] >>> column) & 1L) == 0) {
+            _population += 1;
+            _tilePopulation[row / TILE_ROWS][column >>> 6] += 1;
+        }
+        words[column >>> 6] |= 1L << column;
+        _changed[row / TILE_ROWS][column >>> 6] = true;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void getRow (int row, long[] words, int offset) {
+
+        System.arraycopy(_current[row], 0, words, offset, _words);
+
+    } // getRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of every tile that could change.  A tile
+     * can change only if it or one of its eight neighboring tiles changed in
+     * the last generation; every other tile is skipped.  Each band of tile
+     * rows reads only the current generation and writes only its own tiles
+     * of the next, so the bands need no coordination until they are all done.
+     **/
+    public void evolve () {
+
+        _bands.run(_tileRows, (first, last) -> {
+                for (int tileRow = first; tileRow < last; tileRow += 1) {
+                    evolveTileRow(tileRow);
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int tileRow = 0; tileRow < _tileRows; tileRow += 1) {
+            births += _births[tileRow];
+            deaths += _deaths[tileRow];
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of the active tiles in one row of tiles.
+     *
+     * @param tileRow The row of tiles to evolve.
+     **/
+    private void evolveTileRow (int tileRow) {
+
+        _births[tileRow] = 0;
+        _deaths[tileRow] = 0;
+
+        boolean[] above  = (tileRow > 0) ? _changed[tileRow - 1] : null;
+        boolean[] middle = _changed[tileRow];
+        boolean[] below  = (tileRow < _tileRows - 1) ?
+                           _changed[tileRow + 1] : null;
+        boolean[] result = _nextChanged[tileRow];
+
+        for (int word = 0; word < _words; word += 1) {
+
+            // Did anything in the 3x3 block of tiles around this one change?
+            boolean neighborChanged = false;
+            int firstWord = Math.max(word - 1, 0);
+            int lastWord  = Math.min(word + 1, _words - 1);
+            for (int w = firstWord; w <= lastWord; w += 1) {
+                neighborChanged |= middle[w];
+                neighborChanged |= (above != null) && above[w];
+                neighborChanged |= (below != null) && below[w];
+            }
+
+            // An unchanged tile with unchanged neighbors stays the same, and
+            // since it did not change last time, the next generation already
+            // holds its current cells.
+            if (neighborChanged) {
+                result[word] = evolveTile(tileRow, word);
+            } else {
+                result[word] = false;
+                _nextTilePopulation[tileRow][word] =
+                    _tilePopulation[tileRow][word];
+            }
+
+        }
+
+    } // evolveTileRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of one tile, a single word wide and
+     * <code>TILE_ROWS</code> rows tall.  Cells beyond the edges of the
+     * universe are dead.  The births and deaths are added to those of the
+     * tile's row, and the tile's population is recorded.
+     *
+     * @param tileRow The row of tiles that holds the tile.
+     * @param word The index of the word that holds the tile's columns.
+     * @return <code>true</code> if any cell in the tile changed.
+     **/
+    private boolean evolveTile (int tileRow, int word) {
+
+        int     firstRow = tileRow * TILE_ROWS;
+        int     lastRow  = Math.min(firstRow + TILE_ROWS, _rows);
+        boolean hasWest  = (word > 0);
+        boolean hasEast  = (word + 1 < _words);
+        long    mask     = hasEast ? -1L : _lastMask;
+
+        long changed    = 0;
+        long births     = 0;
+        long deaths     = 0;
+        int  population = 0;
+        for (int row = firstRow; row < lastRow; row += 1) {
+
+            long[] above  = (row > 0)         ? _current[row - 1] : _empty;
+            long[] middle = _current[row];
+            long[] below  = (row < _rows - 1) ? _current[row + 1] : _empty;
+
+            long aboveWord  = above[word];
+            long middleWord = middle[word];
+            long belowWord  = below[word];
+            long aboveWest  = hasWest ? above[word - 1]  : 0;
+            long middleWest = hasWest ? middle[word - 1] : 0;
+            long belowWest  = hasWest ? below[word - 1]  : 0;
+            long aboveEast  = hasEast ? above[word + 1]  : 0;
+            long middleEast = hasEast ? middle[word + 1] : 0;
+            long belowEast  = hasEast ? below[word + 1]  : 0;
+
+            long result = nextWord(_rule,
+                                   west(aboveWord,  aboveWest),
+                                   aboveWord,
+                                   east(aboveWord,  aboveEast),
+                                   west(middleWord, middleWest),
+                                   middleWord,
+                                   east(middleWord, middleEast),
+                                   west(belowWord,  belowWest),
+                                   belowWord,
+                                   east(belowWord,  belowEast));
+
+            // Cells past the last column never come to life.
+            result &= mask;
+
+            _next[row][word] = result;
+            population += Long.bitCount(result);
+            long diff = result ^ middleWord;
+            if (diff != 0) {
+                changed |= diff;
+                births  += Long.bitCount(diff & result);
+                deaths  += Long.bitCount(diff & middleWord);
+            }
+
+        }
+
+        _births[tileRow] += births;
+        _deaths[tileRow] += deaths;
+        _nextTilePopulation[tileRow][word] = population;
+
+        return changed != 0;
+
+    } // evolveTile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Swap the current and next generations, along with the record of which
+     * tiles changed, and account for the births and deaths.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges();
+        }
+
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+        long[][] swap = _current;
+        _current = _next;
+        _next = swap;
+
+        boolean[][] swapChanged = _changed;
+        _changed = _nextChanged;
+        _nextChanged = swapChanged;
+
+        int[][] swapPopulation = _tilePopulation;
+        _tilePopulation = _nextTilePopulation;
+        _nextTilePopulation = swapPopulation;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about every cell that differs between the current and
+     * next generations.  Only the tiles that changed need to be examined.
+     **/
+    private void reportChanges () {
+
+        for (int tileRow = 0; tileRow < _tileRows; tileRow += 1) {
+            int firstRow = tileRow * TILE_ROWS;
+            int lastRow  = Math.min(firstRow + TILE_ROWS, _rows);
+            for (int word = 0; word < _words; word += 1) {
+                if (_nextChanged[tileRow][word]) {
+                    for (int row = firstRow; row < lastRow; row += 1) {
+                        long next = _next[row][word];
+                        long diff = next ^ _current[row][word];
+                        while (diff != 0) {
+                            int bit = Long.numberOfTrailingZeros(diff);
+                            _listener.cellChanged(row,
+                                                  (word << 6) + bit,
+                                                  ((next >>> bit) & 1) != 0);
+                            diff &= diff - 1;
+                        }
+                    }
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle.  Each tile that the rectangle
+     * covers entirely is counted from its recorded population, and only the
+     * tiles along the rectangle's edges are counted bit by bit.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        int  bottom    = top + rows;
+        int  right     = left + columns;
+        int  firstWord = left >>> 6;
+        int  lastWord  = (right - 1) >>> 6;
+        long count     = 0;
+        for (int tileRow = top / TILE_ROWS;
+             tileRow * TILE_ROWS < bottom;
+             tileRow += 1) {
+
+            int     tileTop    = tileRow * TILE_ROWS;
+            int     tileBottom = Math.min(_rows, tileTop + TILE_ROWS);
+            int     firstRow   = Math.max(top, tileTop);
+            int     lastRow    = Math.min(bottom, tileBottom);
+            boolean wholeRows  = (firstRow == tileTop) &&
+                                 (lastRow == tileBottom);
+
+            for (int word = firstWord; word <= lastWord; word += 1) {
+
+                // Keep the columns of this word that lie in the rectangle,
+                // and note whether they are all of the word's real columns.
+                long mask = -1L;
+                if (word == firstWord) {
+                    mask &= -1L << (left & 63);
+                }
+                if ((word == lastWord) && ((right & 63) != 0)) {
+                    mask &= (1L << (right & 63)) - 1;
+                }
+                long real = (word == _words - 1) ? _lastMask : -1L;
+
+                if (wholeRows && ((mask & real) == real)) {
+                    count += _tilePopulation[tileRow][word];
+                } else {
+                    for (int row = firstRow; row < lastRow; row += 1) {
+                        count += Long.bitCount(_current[row][word] & mask);
+                    }
+                }
+
+            }
+
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a range of bits of a packed row, a word at a
+     * time.
+     *
+     * @param words The row, one bit per cell.
+     * @param first The first bit to count.
+     * @param end The bit just past the last one to count.
+     * @return The number of bits set in the range.
+     **/
+    static long countBits (long[] words, int first, int end) {
+
+        if (first >= end) {
+            return 0;
+        }
+
+        int  firstWord = first >>> 6;
+        int  lastWord  = (end - 1) >>> 6;
+        long lastMask  = -1L >>> (-end & 63);
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[firstWord] & (-1L << first) & lastMask);
+        }
+
+        long count = Long.bitCount(words[firstWord] & (-1L << first));
+        for (int word = firstWord + 1; word < lastWord; word += 1) {
+            count += Long.bitCount(words[word]);
+        }
+
+        return count + Long.bitCount(words[lastWord] & lastMask);
+
+    } // countBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Align each cell of a word with its western neighbor.
+     *
+     * @param word The word of cells.
+     * @param previous The word holding the 64 columns to the west.
+     * @return A word whose bit <i>i</i> is the western neighbor of bit
+     *         <i>i</i> in <code>word</code>.
+     **/
+    static long west (long word, long previous) {
+
+        return (word << 1) | (previous >>> 63);
+
+    } // west ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Align each cell of a word with its eastern neighbor.
+     *
+     * @param word The word of cells.
+     * @param next The word holding the 64 columns to the east.
+     * @return A word whose bit <i>i</i> is the eastern neighbor of bit
+     *         <i>i</i> in <code>word</code>.
+     **/
+    static long east (long word, long next) {
+
+        return (word >>> 1) | (next << 63);
+
+    } // east ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply a rule to 64 cells at once.  The eight neighbor words are summed
+     * bit-wise with a tree of full and half adders, producing the binary
+     * digits of each cell's neighbor count in separate words, from which the
+     * rule selects each cell's next state.
+     *
+     * @return The word of cells in the next generation.
+     **/
+    static long nextWord (Rule rule,
+                          long northWest, long north, long northEast,
+                          long west, long center, long east,
+                          long southWest, long south, long southEast) {
+
+        // Add the neighbors in groups of three, three, and two.
+        long sumA   = northWest ^ north ^ northEast;
+        long carryA = (northWest & north) | (northEast & (northWest ^ north));
+        long sumB   = west ^ east ^ southWest;
+        long carryB = (west & east) | (southWest & (west ^ east));
+        long sumC   = south ^ southEast;
+        long carryC = south & southEast;
+
+        // Combine the ones digits, carrying into the twos.
+        long ones     = sumA ^ sumB ^ sumC;
+        long carryOne = (sumA & sumB) | (sumC & (sumA ^ sumB));
+
+        // Combine the four twos, carrying into the fours and, for a count of
+        // 8, the eights.
+        long twosSum   = carryA ^ carryB ^ carryC;
+        long twosCarry = (carryA & carryB) | (carryC & (carryA ^ carryB));
+        long twos      = twosSum ^ carryOne;
+        long fours     = twosCarry ^ (twosSum & carryOne);
+        long eights    = twosCarry & twosSum & carryOne;
+
+        return rule.nextWord(center, ones, twos, fours, eights);
+
+    } // nextWord ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of rows in each tile.  Each tile is one word wide.
+     **/
+    public final static int TILE_ROWS = 64;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The number of words needed to hold each row.
+     **/
+    private final int _words;
+
+    /**
+     * The bits of the last word of each row that hold real columns.
+     **/
+    private final long _lastMask;
+
+    /**
+     * The current generation, one array of words per row.
+     **/
+    private long[][] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private long[][] _next;
+
+    /**
+     * An all-dead row that stands in for the rows beyond the edges.
+     **/
+    private final long[] _empty;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The number of rows of tiles.
+     **/
+    private final int _tileRows;
+
+    /**
+     * Whether each tile changed in the last generation.
+     **/
+    private boolean[][] _changed;
+
+    /**
+     * Whether each tile changes in the next generation.
+     **/
+    private boolean[][] _nextChanged;
+
+    /**
+     * The number of live cells in each tile of the current generation.
+     **/
+    private int[][] _tilePopulation;
+
+    /**
+     * The number of live cells in each tile of the next generation.
+     **/
+    private int[][] _nextTilePopulation;
+
+    /**
+     * The number of cells born in each row of tiles, for the bands to fill in
+     * without sharing a counter.
+     **/
+    private final long[] _births;
+
+    /**
+     * The number of cells that die in each row of tiles.
+     **/
+    private final long[] _deaths;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BitEngine
+// =============================================================================
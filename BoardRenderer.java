@@ -0,0 +1,327 @@
+// =============================================================================
+/**
+ * The <code>BoardRenderer</code> class.  Draw a <code>Snapshot</code> into
+ * an image of the size of its viewport by writing the pixels directly.  When
+ * zoomed in, each cell is a square box, colored by the quarter of the board
+ * in which its row lies; when zoomed out, each pixel is that color shaded by
+ * the density of its block.  The part of the view beyond the board is gray.
+ *
+ * The image is kept from one frame to the next.  While the viewport stays the
+ * same, only the boxes or pixels that have changed since the last snapshot
+ * are redrawn; moving or zooming the view redraws all of it.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class BoardRenderer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty image of the given size.
+     *
+     * @param width The width of the image, in pixels.
+     * @param height The height of the image, in pixels.
+     **/
+    public BoardRenderer (int width, int height) {
+
+        if ((width <= 0) || (height <= 0) ||
+            ((long)width * height > Integer.MAX_VALUE)) {
+            Support.abort("ERROR: Cannot draw an image of size " + width +
+                          ", " + height);
+        }
+
+        _width  = width;
+        _height = height;
+        _image  = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        _pixels = ((DataBufferInt)_image.getRaster().getDataBuffer())
+                  .getData();
+        Arrays.fill(_pixels, _outsideColor);
+
+    } // BoardRenderer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getWidth () {
+
+        return _width;
+
+    } // getWidth ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getHeight () {
+
+        return _height;
+
+    } // getHeight ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring the image up to date with a snapshot of the board.  If the
+     * snapshot shows the same view as the last one, only what changed is
+     * redrawn.
+     *
+     * @param snapshot The board to draw, whose viewport must be the size of
+     *                 this image.
+     * @return The number of boxes or pixels redrawn.
+     **/
+    public int update (Snapshot snapshot) {
+
+        Viewport view     = snapshot.getViewport();
+        Snapshot previous = _drawn;
+        if ((previous != null) &&
+            (!previous.getViewport().equals(view) ||
+             (previous.getRows() != snapshot.getRows()) ||
+             (previous.getColumns() != snapshot.getColumns()))) {
+            previous = null;
+        }
+        if (previous == null) {
+            Arrays.fill(_pixels, _outsideColor);
+        }
+        _drawn = snapshot;
+
+        // Visit only the part of the view that lies on the board.
+        int rows    = snapshot.getRows();
+        int columns = snapshot.getColumns();
+        int top     = view.getTop();
+        int left    = view.getLeft();
+        int first   = Math.max(top, 0);
+        int last    = (int)Math.min((long)top + view.getRows(), rows);
+        int start   = Math.max(left, 0);
+        int end     = (int)Math.min((long)left + view.getColumns(), columns);
+
+        int redrawn = 0;
+        if (view.getBlockSize() == 1) {
+
+            for (int row = first; row < last; row += 1) {
+                int color = rowColor(row, rows);
+                for (int column = start; column < end; column += 1) {
+                    boolean alive = snapshot.isAlive(row, column);
+                    if ((previous == null) ||
+                        (alive != previous.isAlive(row, column))) {
+                        fillBox(view, row, column, alive ? color : _deadColor);
+                        redrawn += 1;
+                    }
+                }
+            }
+
+        } else {
+
+            int block = view.getBlockSize();
+            for (int y = (first - top) / block; y * (long)block + top < last;
+                 y += 1) {
+                int color = rowColor(top + y * block, rows);
+                for (int x = (start - left) / block;
+                     x * (long)block + left < end;
+                     x += 1) {
+                    int density = snapshot.getDensity(x, y);
+                    if ((previous == null) ||
+                        (density != previous.getDensity(x, y))) {
+                        _pixels[y * _width + x] = shade(color, density);
+                        redrawn += 1;
+                    }
+                }
+            }
+
+        }
+
+        return redrawn;
+
+    } // update ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Fill one cell's box, with a border if the box is large enough to show
+     * one.  Boxes at the edges of the image are cut off.
+     *
+     * @param view The viewport being drawn.
+     * @param row The row of the cell.
+     * @param column The column of the cell.
+     * @param color The RGB color with which to fill it.
+     **/
+    private void fillBox (Viewport view, int row, int column, int color) {
+
+        int box    = view.getBoxSize();
+        int top    = (row    - view.getTop())  * box;
+        int left   = (column - view.getLeft()) * box;
+        int bottom = Math.min(top + box, _height);
+        int right  = Math.min(left + box, _width);
+        int inset  = (box >= _minBorderedBoxSize) ? 1 : 0;
+
+        for (int y = top; y < bottom; y += 1) {
+            int offset = y * _width;
+            if ((inset == 1) && (y == top)) {
+                Arrays.fill(_pixels, offset + left, offset + right,
+                            _borderColor);
+            } else {
+                Arrays.fill(_pixels, offset + left + inset, offset + right,
+                            color);
+                if (inset == 1) {
+                    _pixels[offset + left] = _borderColor;
+                }
+            }
+        }
+
+    } // fillBox ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the image, ready to be drawn in a single call.
+     *
+     * @return The image of the board.
+     **/
+    public BufferedImage getImage () {
+
+        return _image;
+
+    } // getImage ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the color of the live cells in a row:  green, cyan, blue, or
+     * magenta, by the quarter of the board in which the row lies.
+     *
+     * @param row The row.
+     * @param rows The number of rows on the board.
+     * @return The RGB color of the row's live cells.
+     **/
+    private static int rowColor (int row, int rows) {
+
+        if (row < (int)(0.25 * rows)) {
+            return _quarterColors[0];
+        } else if (row < (int)(0.5 * rows)) {
+            return _quarterColors[1];
+        } else if (row < (int)(0.75 * rows)) {
+            return _quarterColors[2];
+        } else {
+            return _quarterColors[3];
+        }
+
+    } // rowColor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Darken a color by the density of a block.  Any live cell at all shows
+     * at a quarter of full brightness, so that sparse patterns stay visible.
+     *
+     * @param color The RGB color of a full block.
+     * @param density The density of the block, from 0 to 255.
+     * @return The RGB color of the block.
+     **/
+    private static int shade (int color, int density) {
+
+        if (density == 0) {
+            return _deadColor;
+        }
+
+        int scale = 64 + (density * 191) / 255;
+        int red   = (((color >> 16) & 0xff) * scale) / 255;
+        int green = (((color >>  8) & 0xff) * scale) / 255;
+        int blue  = (( color        & 0xff) * scale) / 255;
+
+        return (red << 16) | (green << 8) | blue;
+
+    } // shade ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The colors of the live cells in each quarter of the board's rows.
+     **/
+    private final static int[] _quarterColors = {
+        Color.GREEN.getRGB(),
+        Color.CYAN.getRGB(),
+        Color.BLUE.getRGB(),
+        Color.MAGENTA.getRGB()
+    };
+
+    /**
+     * The color of a dead cell.
+     **/
+    private final static int _deadColor = Color.BLACK.getRGB();
+
+    /**
+     * The color of the border around each box.
+     **/
+    private final static int _borderColor = Color.LIGHT_GRAY.getRGB();
+
+    /**
+     * The color of the part of the view beyond the board.
+     **/
+    private final static int _outsideColor = Color.DARK_GRAY.getRGB();
+
+    /**
+     * The smallest box that is drawn with a border.
+     **/
+    private final static int _minBorderedBoxSize = 4;
+
+    /**
+     * The width of the image, in pixels.
+     **/
+    private final int _width;
+
+    /**
+     * The height of the image, in pixels.
+     **/
+    private final int _height;
+
+    /**
+     * The image of the board.
+     **/
+    private final BufferedImage _image;
+
+    /**
+     * The pixels of the image, one RGB value per pixel in row-major order.
+     **/
+    private final int[] _pixels;
+
+    /**
+     * The snapshot drawn last, if any.
+     **/
+    private Snapshot _drawn;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BoardRenderer
+// =============================================================================
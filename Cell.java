@@ -227,25 +227,28 @@ public class Cell {
      **/
     public void evolve () {
 
-	// WRITE ME
+	evolve(Rule.CONWAY);
 
-        //save live neighbors as an int value
-        int numAliveNeighbors = this.countLiveNeighbors();
+    } // evolve ()
+    // =========================================================================
 
-        //apply Conway rules
 
-        //1. a live cell with 2 or 3 live neighbors remains alive
-        if (this._isAlive && (numAliveNeighbors == 2 || numAliveNeighbors == 3)) {
-            this._willBeAlive = true;
-        }
 
-        //2. a dead cell with 3 live neighbors becomes alive
-        else if (!this._isAlive && numAliveNeighbors == 3) {
-            this._willBeAlive = true;
-        }
-        else {
-            this._willBeAlive = false;
-        }
+    // =========================================================================
+    /**
+     * Based on its neighbors' states, evolve this cell by calculating and
+     * adopting its state for next generation under the given rule.
+     *
+     * @param rule The rule by which the cell lives or dies.
+     **/
+    public void evolve (Rule rule) {
+
+        //save live neighbors as an int value
+        int numAliveNeighbors = this.countLiveNeighbors();
+
+        //look up the next state for this state and count in the rule
+        this._willBeAlive = rule.next(this._isAlive ? 1 : 0,
+                                      numAliveNeighbors) == 1;
 
     } // evolve ()
     // =========================================================================
@@ -255,18 +258,25 @@ public class Cell {
     // =========================================================================
     /**
      * Advance to the next generation.
+     *
+     * @return <code>true</code> if the cell was born or died.
      **/
-    public void advance () {
+    public boolean advance () {
 
 	// WRITE ME
 
-        //change state of cell into current liveness based on its calculated liveness of next generation
+        boolean changed = (this._willBeAlive != this._isAlive);
+
+        //change state of cell into current liveness based on its calculated
+        //liveness of next generation
         if (this._willBeAlive) {
             this.makeAlive();
         }
         else {
             this.makeDead();
         }
+
+        return changed;
 	
     }
     // =========================================================================
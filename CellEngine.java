@@ -0,0 +1,271 @@
+// =============================================================================
+/**
+ * The <code>CellEngine</code> class.  Evolve a universe held as a
+ * <code>Grid</code> of <code>Cell</code> objects, letting each
+ * <code>Cell</code> apply the survival rules to itself.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class CellEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a <code>Grid</code> of initially-dead
+     * <code>Cell</code>s, evolved by a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public CellEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), Rule.CONWAY);
+
+    } // CellEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a <code>Grid</code> of
+     * initially-dead <code>Cell</code>s, evolved in parallel bands of rows by
+     * the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public CellEngine (int rows, int columns, Bands bands, Rule rule) {
+
+        _grid   = new Grid(rows, columns);
+        _bands  = bands;
+        _rule   = rule;
+        _births = new int[rows];
+        _deaths = new int[rows];
+
+    } // CellEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _grid.getRows();
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _grid.getColumns();
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return _grid.getCell(row, column).isAlive();
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        Cell cell = _grid.getCell(row, column);
+        if (!cell.isAlive()) {
+            _population += 1;
+        }
+        cell.makeAlive();
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have every <code>Cell</code> calculate its state for the next
+     * generation.  No <code>Cell</code> changes its current state here, so
+     * the bands may run in parallel.
+     **/
+    public void evolve () {
+
+        _bands.run(getRows(), (first, last) -> {
+                for (int row = first; row < last; row += 1) {
+                    for (int column = 0; column < getColumns(); column += 1) {
+                        _grid.getCell(row, column).evolve(_rule);
+                    }
+                }
+            });
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have every <code>Cell</code> adopt its calculated state.  This begins
+     * only after every band has finished <code>evolve()</code>.  Each band
+     * counts the births and deaths in its own rows, and these then update the
+     * population.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            for (int row = 0; row < getRows(); row += 1) {
+                for (int column = 0; column < getColumns(); column += 1) {
+                    Cell cell = _grid.getCell(row, column);
+                    if (cell._willBeAlive != cell._isAlive) {
+                        _listener.cellChanged(row, column, cell._willBeAlive);
+                    }
+                }
+            }
+        }
+
+        _bands.run(getRows(), (first, last) -> {
+                for (int row = first; row < last; row += 1) {
+                    int births = 0;
+                    int deaths = 0;
+                    for (int column = 0; column < getColumns(); column += 1) {
+                        Cell cell = _grid.getCell(row, column);
+                        if (cell.advance()) {
+                            if (cell.isAlive()) {
+                                births += 1;
+                            } else {
+                                deaths += 1;
+                            }
+                        }
+                    }
+                    _births[row] = births;
+                    _deaths[row] = deaths;
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int row = 0; row < getRows(); row += 1) {
+            births += _births[row];
+            deaths += _deaths[row];
+        }
+        _population += births - deaths;
+        _lastBirths  = births;
+        _lastDeaths  = deaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The grid of cells.
+     **/
+    private Grid _grid;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+
+    /**
+     * The number of cells born in each row, for the bands to fill in without
+     * sharing a counter.
+     **/
+    private final int[] _births;
+
+    /**
+     * The number of cells that died in each row.
+     **/
+    private final int[] _deaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CellEngine
+// =============================================================================
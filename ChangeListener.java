@@ -0,0 +1,32 @@
+// =============================================================================
+/**
+ * A <code>ChangeListener</code> is told about every cell that is born or dies
+ * as an <code>Engine</code> advances from one generation to the next.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface ChangeListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note that a cell has changed state.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born; <code>false</code>
+     *              if it died.
+     **/
+    public void cellChanged (int row, int column, boolean alive);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface ChangeListener
+// =============================================================================
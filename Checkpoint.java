@@ -0,0 +1,450 @@
+// =============================================================================
+/**
+ * The <code>Checkpoint</code> class.  The full state of a game at one
+ * generation, in a compact binary form that can be written to a file and
+ * read back far faster than an initial-state file can be parsed.
+ *
+ * A checkpoint file holds, in little-endian order, a 40-byte header and then
+ * the cells.  The header is the magic number <code>LIFE</code>, the format
+ * version, the numbers of rows and of columns, the generation, the
+ * population, and the rule's masks of births and of survivals.  (Version 1
+ * files, whose 32-byte header ends at the population, hold games of the
+ * Conway rules, and can still be read.)  The cells follow one row after
+ * another, each row packed one bit per cell into (columns + 63) / 64
+ * <code>long</code> words, with column <i>c</i> in bit <i>c</i> mod 64 of
+ * word <i>c</i> / 64.
+ *
+ * A checkpoint is either captured from a game, copying its rows into the
+ * heap, or read from a file, mapping the file into memory so that nothing is
+ * copied until the cells are loaded into an engine.  Either way, the cells
+ * are held in buffers of whole rows of at most a gigabyte each.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+// =============================================================================
+
+
+
+// =============================================================================
+public final class Checkpoint {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Capture the current generation of a game.
+     *
+     * @param game The game to capture.
+     **/
+    public Checkpoint (Game game) {
+
+        this(game.getRows(),
+             game.getColumns(),
+             game.getGeneration(),
+             game.getPopulation(),
+             game.getRule());
+
+        Engine engine = game.getEngine();
+        for (int chunk = 0; chunk < _chunks.length; chunk += 1) {
+            int    first = chunk * _chunkRows;
+            int    last  = Math.min(first + _chunkRows, _rows);
+            long[] words = new long[(last - first) * _words];
+            for (int row = first; row < last; row += 1) {
+                engine.getRow(row, words, (row - first) * _words);
+            }
+            _chunks[chunk] = LongBuffer.wrap(words);
+        }
+
+    } // Checkpoint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the dimensions and leave the buffers to be filled in.
+     **/
+    private Checkpoint (int rows, int columns, long generation,
+                        long population, Rule rule) {
+
+        _rule       = rule;
+        _rows       = rows;
+        _columns    = columns;
+        _generation = generation;
+        _population = population;
+        _words      = (columns + 63) >>> 6;
+        _chunkRows  = Math.max(1, _chunkWords / _words);
+        _chunks     = new LongBuffer[(rows + _chunkRows - 1) / _chunkRows];
+        _lastMask   = ((columns & 63) == 0) ? -1L
+                                            : (1L << (columns & 63)) - 1;
+
+    } // Checkpoint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a file is a checkpoint rather than an initial-state
+     * file, by its magic number.
+     *
+     * @param path The pathname of the file.
+     * @return <code>true</code> if the file starts with the magic number.
+     * @throws IOException If the file cannot be read.
+     **/
+    public static boolean isCheckpoint (String path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path),
+                                                    StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4)
+                                         .order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(magic);
+            return !magic.hasRemaining() && (magic.getInt(0) == _magic);
+        } catch (NoSuchFileException e) {
+            throw new IOException("File not found: " + path);
+        }
+
+    } // isCheckpoint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a checkpoint file by mapping it into memory.
+     *
+     * @param path The pathname of the checkpoint file.
+     * @return The checkpoint, whose cells are read from the mapped file.
+     * @throws IOException If the file cannot be read, or if it is not a
+     *                     complete checkpoint of a known version.
+     **/
+    public static Checkpoint read (String path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path),
+                                                    StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size < _oldHeaderSize) {
+                throw new IOException("Not a checkpoint: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,
+                                            0,
+                                            Math.min(size, _headerSize))
+                                       .order(ByteOrder.LITTLE_ENDIAN);
+            int version = header.getInt(4);
+            if ((header.getInt(0) != _magic) ||
+                ((version != 1) && (version != _version)) ||
+                ((version == _version) && (size < _headerSize))) {
+                throw new IOException("Not a version 1 or " + _version +
+                                      " checkpoint: " + path);
+            }
+            int  headerSize = (version == 1) ? _oldHeaderSize : _headerSize;
+            int  rows       = header.getInt(8);
+            int  columns    = header.getInt(12);
+            long generation = header.getLong(16);
+            long population = header.getLong(24);
+            Rule rule       = (version == 1) ? Rule.CONWAY : null;
+            if (version == _version) {
+                int births    = header.getInt(32);
+                int survivals = header.getInt(36);
+                if (((births | survivals) & ~0x1ff) == 0) {
+                    rule = new Rule(births, survivals);
+                }
+            }
+            if ((rows <= 0) || (columns <= 0) || (generation < 0) ||
+                (population < 0) || (rule == null) ||
+                (size != headerSize +
+                         (long)rows * ((columns + 63) >>> 6) * 8)) {
+                throw new IOException("Corrupt checkpoint: " + path);
+            }
+
+            // Map the rows in chunks; the mappings outlive the channel.
+            Checkpoint checkpoint = new Checkpoint(rows,
+                                                   columns,
+                                                   generation,
+                                                   population,
+                                                   rule);
+            long offset = headerSize;
+            for (int chunk = 0; chunk < checkpoint._chunks.length;
+                 chunk += 1) {
+                int  first = chunk * checkpoint._chunkRows;
+                int  last  = Math.min(first + checkpoint._chunkRows, rows);
+                long bytes = (long)(last - first) * checkpoint._words * 8;
+                checkpoint._chunks[chunk] =
+                    channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes)
+                           .order(ByteOrder.LITTLE_ENDIAN)
+                           .asLongBuffer();
+                offset += bytes;
+            }
+
+            return checkpoint;
+
+        } catch (NoSuchFileException e) {
+            throw new IOException("File not found: " + path);
+        }
+
+    } // read ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write this checkpoint to a file.  It is written first to a temporary
+     * file beside it, which then replaces the file in one step, so that a run
+     * that stops partway through the write leaves the last checkpoint whole.
+     *
+     * @param path The pathname of the checkpoint file.
+     * @throws IOException If the file cannot be written.
+     **/
+    public void write (String path) throws IOException {
+
+        Path target = Paths.get(path);
+        Path temp   = Paths.get(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                 temp,
+                 StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(_bufferSize)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(_magic)
+                  .putInt(_version)
+                  .putInt(_rows)
+                  .putInt(_columns)
+                  .putLong(_generation)
+                  .putLong(_population)
+                  .putInt(_rule.getBirths())
+                  .putInt(_rule.getSurvivals());
+            for (int row = 0; row < _rows; row += 1) {
+                for (int word = 0; word < _words; word += 1) {
+                    if (!buffer.hasRemaining()) {
+                        drain(buffer, channel);
+                    }
+                    buffer.putLong(getWord(row, word));
+                }
+            }
+            drain(buffer, channel);
+
+        }
+        Files.move(temp, target,
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+
+    } // write ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write out everything put in a buffer, and empty it.
+     **/
+    private static void drain (ByteBuffer buffer, FileChannel channel)
+        throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getGeneration () {
+
+        return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule by which the saved game was played.
+     *
+     * @return The rule.
+     **/
+    public Rule getRule () {
+
+        return _rule;
+
+    } // getRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of words that hold each row.
+     *
+     * @return (columns + 63) / 64.
+     **/
+    public int getWords () {
+
+        return _words;
+
+    } // getWords ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide one word of packed cells.  Any bits past the last column are
+     * cleared.
+     *
+     * @param row The row of the word.
+     * @param word The index of the word in its row.
+     * @return The word, with column 64 * <code>word</code> in bit 0.
+     **/
+    public long getWord (int row, int word) {
+
+        long bits = _chunks[row / _chunkRows].get((row % _chunkRows) * _words +
+                                                  word);
+
+        return (word == _words - 1) ? (bits & _lastMask) : bits;
+
+    } // getWord ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The magic number that starts a checkpoint file:  <code>LIFE</code> in
+     * ASCII, read as a little-endian <code>int</code>.
+     **/
+    private final static int _magic = 0x4546494c;
+
+    /**
+     * The version of the format.
+     **/
+    private final static int _version = 2;
+
+    /**
+     * The size of the header, in bytes.
+     **/
+    private final static int _headerSize = 40;
+
+    /**
+     * The size of the header of a version 1 file, in bytes.
+     **/
+    private final static int _oldHeaderSize = 32;
+
+    /**
+     * The largest number of words in one buffer:  a gigabyte's worth.
+     **/
+    private final static int _chunkWords = 1 << 27;
+
+    /**
+     * The size of the buffer through which a checkpoint is written.
+     **/
+    private final static int _bufferSize = 1 << 20;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The generation captured.
+     **/
+    private final long _generation;
+
+    /**
+     * The number of live cells in that generation.
+     **/
+    private final long _population;
+
+    /**
+     * The rule by which the game is played.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The number of words that hold each row.
+     **/
+    private final int _words;
+
+    /**
+     * The number of rows in each buffer, the last of which may hold fewer.
+     **/
+    private final int _chunkRows;
+
+    /**
+     * The bits of the last word of each row that hold real columns.
+     **/
+    private final long _lastMask;
+
+    /**
+     * The cells, in buffers of whole rows.
+     **/
+    private final LongBuffer[] _chunks;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Checkpoint
+// =============================================================================
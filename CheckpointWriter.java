@@ -0,0 +1,176 @@
+// =============================================================================
+/**
+ * The <code>CheckpointWriter</code> class.  Save a game to a checkpoint file
+ * every so many generations, and once more when it is done.
+ *
+ * Each checkpoint is captured on the thread that plays the game, which only
+ * copies the packed rows of the current generation, and is then written to
+ * the file on a thread of its own while the game goes on.  If the last
+ * checkpoint is still being written when the next one is due, the next one
+ * waits for a later move rather than piling up copies of the board.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+// =============================================================================
+
+
+
+// =============================================================================
+public class CheckpointWriter {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param path The pathname of the checkpoint file, which each checkpoint
+     *             replaces.
+     * @param every The number of generations between checkpoints, or 0 to
+     *              save only when the game is done.
+     * @param generation The generation at which the game starts, from which
+     *                   the first checkpoint is counted.
+     **/
+    public CheckpointWriter (String path, long every, long generation) {
+
+        if (every < 0) {
+            Support.abort("ERROR: checkpoint.every must not be negative: " +
+                          every);
+        }
+
+        _path            = path;
+        _every           = every;
+        _savedGeneration = generation;
+        _executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    } // CheckpointWriter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start saving a checkpoint if one is due at the game's generation and
+     * the last one has been written.
+     *
+     * @param game The game, between moves.
+     **/
+    public void offer (Game game) {
+
+        long generation = game.getGeneration();
+        if ((_every == 0) || (generation - _savedGeneration < _every) ||
+            ((_pending != null) && !_pending.isDone())) {
+            return;
+        }
+
+        Checkpoint checkpoint = new Checkpoint(game);
+        _savedGeneration = generation;
+        _pending = _executor.submit(() -> save(checkpoint));
+
+    } // offer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Save the game as it stands, unless the last checkpoint already holds
+     * it, after waiting for the last checkpoint to be written.  Then stop
+     * the writing thread.
+     *
+     * @param game The game, when it is done.
+     **/
+    public void finish (Game game) {
+
+        if (_pending != null) {
+            try {
+                _pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("WARNING: Cannot write the checkpoint " +
+                                   _path + ": " + e.getCause());
+            }
+        }
+        if ((_pending == null) || (game.getGeneration() != _savedGeneration)) {
+            save(new Checkpoint(game));
+        }
+        _executor.shutdown();
+
+    } // finish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a checkpoint to the file.  A failure is reported but does not
+     * stop the game, which can go on to the next checkpoint.
+     *
+     * @param checkpoint The checkpoint to write.
+     **/
+    private void save (Checkpoint checkpoint) {
+
+        try {
+            checkpoint.write(_path);
+        } catch (IOException e) {
+            System.err.println("WARNING: Cannot write the checkpoint " +
+                               _path + ": " + e.getMessage());
+        }
+
+    } // save ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The pathname of the checkpoint file.
+     **/
+    private final String _path;
+
+    /**
+     * The number of generations between checkpoints, or 0 for none until
+     * the game is done.
+     **/
+    private final long _every;
+
+    /**
+     * The thread that writes the checkpoints.
+     **/
+    private final ExecutorService _executor;
+
+    /**
+     * The checkpoint being written, if any.
+     **/
+    private Future<?> _pending;
+
+    /**
+     * The generation of the last checkpoint started, or of the start of the
+     * game before the first.
+     **/
+    private long _savedGeneration;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CheckpointWriter
+// =============================================================================
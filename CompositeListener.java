@@ -0,0 +1,88 @@
+// =============================================================================
+/**
+ * The <code>CompositeListener</code> class.  Pass every change on to two
+ * listeners, for an engine that reports to only one.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class CompositeListener implements ChangeListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Combine two listeners, either of which may be absent.
+     *
+     * @param first The listener told first, or <code>null</code>.
+     * @param second The listener told second, or <code>null</code>.
+     * @return A listener that tells both, the one that is present, or
+     *         <code>null</code> if neither is.
+     **/
+    public static ChangeListener combine (ChangeListener first,
+                                          ChangeListener second) {
+
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+
+        return new CompositeListener(first, second);
+
+    } // combine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param first The listener told first.
+     * @param second The listener told second.
+     **/
+    private CompositeListener (ChangeListener first, ChangeListener second) {
+
+        _first  = first;
+        _second = second;
+
+    } // CompositeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void cellChanged (int row, int column, boolean alive) {
+
+        _first.cellChanged(row, column, alive);
+        _second.cellChanged(row, column, alive);
+
+    } // cellChanged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The listener told first.
+     **/
+    private final ChangeListener _first;
+
+    /**
+     * The listener told second.
+     **/
+    private final ChangeListener _second;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CompositeListener
+// =============================================================================
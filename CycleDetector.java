@@ -0,0 +1,155 @@
+// =============================================================================
+/**
+ * The <code>CycleDetector</code> class.  Keep a Zobrist hash of the universe,
+ * the exclusive-or of a fixed random key for every live cell, updated as
+ * cells are born and die.  Comparing the hash with those of recent
+ * generations reveals a universe that has become static or periodic.
+ *
+ * Two different universes share a hash with a probability of about
+ * 2<sup>-64</sup>, which is treated as never.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class CycleDetector implements ChangeListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Start with an empty universe and no history.
+     *
+     * @param history The number of past generations to remember, which is
+     *                also the longest period that can be detected.
+     **/
+    public CycleDetector (int history) {
+
+        if (history <= 0) {
+            Support.abort("ERROR: The cycle history must be positive: " +
+                          history);
+        }
+
+        _hash        = 0;
+        _hashes      = new long[history];
+        _generations = new long[history];
+        _recorded    = 0;
+
+    } // CycleDetector ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Fold a birth or death into the hash.  Either one flips the cell's key
+     * in or out.
+     **/
+    public void cellChanged (int row, int column, boolean alive) {
+
+        _hash ^= key(row, column);
+
+    } // cellChanged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the hash of the current universe.
+     *
+     * @return The Zobrist hash of the live cells.
+     **/
+    public long getHash () {
+
+        return _hash;
+
+    } // getHash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remember the current hash as that of the given generation, and check
+     * whether any remembered generation had the same hash.
+     *
+     * @param generation The number of the current generation.
+     * @return The number of generations since the universe was last in its
+     *         current state, or 0 if it has not been seen recently.
+     **/
+    public long record (long generation) {
+
+        int  remembered = (int)Math.min(_recorded, _hashes.length);
+        long period     = 0;
+        for (int i = 0; i < remembered; i += 1) {
+            if (_hashes[i] == _hash) {
+                period = generation - _generations[i];
+                break;
+            }
+        }
+
+        // Overwrite the oldest entry.
+        int slot = (int)(_recorded % _hashes.length);
+        _hashes[slot]      = _hash;
+        _generations[slot] = generation;
+        _recorded += 1;
+
+        return period;
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the random key of a cell.  The key is computed by mixing the
+     * coordinates rather than looked up, so that boards of any size need no
+     * table.
+     **/
+    private static long key (int row, int column) {
+
+        long key = ((long)row << 32) | (column & 0xffffffffL);
+        key += 0x9e3779b97f4a7c15L;
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+
+        return key ^ (key >>> 31);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The hash of the current universe.
+     **/
+    private long _hash;
+
+    /**
+     * The hashes of recent generations, in a circular buffer.
+     **/
+    private final long[] _hashes;
+
+    /**
+     * The generation number of each remembered hash.
+     **/
+    private final long[] _generations;
+
+    /**
+     * The number of hashes recorded so far.
+     **/
+    private long _recorded;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CycleDetector
+// =============================================================================
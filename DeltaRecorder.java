@@ -0,0 +1,558 @@
+// =============================================================================
+/**
+ * The <code>DeltaRecorder</code> class.  Record a game as it plays, writing
+ * only the cells that change in each move, so that the size of the
+ * recording and the cost of making it follow the activity of the universe
+ * rather than its area.
+ *
+ * A delta file holds the bytes <code>LIFD</code> and then unsigned varints,
+ * seven bits to a byte with the low bits first and the high bit set on every
+ * byte but the last.  The header is the format version, the numbers of rows
+ * and of columns, the rule's masks of births and of survivals, and the
+ * generation at which the recording starts.  A frame follows for the start
+ * and for each move:  the number of generations since the last frame (0 for
+ * the first), and then the cells born and the cells that died, as runs of
+ * adjacent cells within a row.  The first frame's births are every live cell
+ * at the start.  Only the cells within the rows and columns of the game are
+ * recorded, even by an engine whose universe reaches beyond them.
+ *
+ * Each set of runs is its number of runs and then, for each run in order by
+ * row and column, the rows since the last run, the columns from the end of
+ * the last run if it was in the same row or from column 0 if not, and the
+ * length of the run less 1.
+ *
+ * The moves are encoded on the thread that plays the game, and written to
+ * the file by a thread of their own.  If the writer falls a few moves
+ * behind, the game waits for it rather than piling up frames.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+// =============================================================================
+
+
+
+// =============================================================================
+public class DeltaRecorder implements ChangeListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the file, and record the game's current
+     * generation as the first frame.
+     *
+     * @param path The pathname of the delta file, which is replaced.
+     * @param game The game to record, before its first move.
+     **/
+    public DeltaRecorder (String path, Game game) {
+
+        _path       = path;
+        _rows       = game.getRows();
+        _columns    = game.getColumns();
+        _births     = new long[_initialCells];
+        _deaths     = new long[_initialCells];
+        _scratch    = new long[_initialCells];
+        _rowStarts  = new int[game.getRows() + 1];
+        _frame      = new byte[_initialBytes];
+        _generation = game.getGeneration();
+        _queue      = new ArrayBlockingQueue<byte[]>(_queuedFrames);
+
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(
+                      Files.newOutputStream(Paths.get(path)), _bufferSize);
+        } catch (IOException e) {
+            Support.abort("ERROR: Cannot write the delta file " + path +
+                          ": " + e.getMessage());
+        }
+        OutputStream file = out;
+        _writer = new Thread(() -> write(file), "delta");
+        _writer.setDaemon(true);
+        _writer.start();
+
+        // The header, and then every live cell as born.
+        Rule rule = game.getRule();
+        for (int i = 0; i < _magic.length; i += 1) {
+            _frame[_length++] = _magic[i];
+        }
+        writeVarint(_version);
+        writeVarint(game.getRows());
+        writeVarint(game.getColumns());
+        writeVarint(rule.getBirths());
+        writeVarint(rule.getSurvivals());
+        writeVarint(_generation);
+
+        Engine engine = game.getEngine();
+        long[] words  = new long[(game.getColumns() + 63) >>> 6];
+        for (int row = 0; row < game.getRows(); row += 1) {
+            engine.getRow(row, words, 0);
+            for (int word = 0; word < words.length; word += 1) {
+                long cells = words[word];
+                while (cells != 0) {
+                    int bit = Long.numberOfTrailingZeros(cells);
+                    cellChanged(row, (word << 6) + bit, true);
+                    cells &= cells - 1;
+                }
+            }
+        }
+        record(_generation);
+
+    } // DeltaRecorder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note a birth or death for the frame of the current move.
+     **/
+    public void cellChanged (int row, int column, boolean alive) {
+
+        if ((row < 0) || (row >= _rows) ||
+            (column < 0) || (column >= _columns)) {
+            return;
+        }
+
+        long key = ((long)row << 32) | column;
+        if (alive) {
+            if (_birthCount == _births.length) {
+                _births = Arrays.copyOf(_births, _birthCount * 2);
+            }
+            _births[_birthCount++] = key;
+        } else {
+            if (_deathCount == _deaths.length) {
+                _deaths = Arrays.copyOf(_deaths, _deathCount * 2);
+            }
+            _deaths[_deathCount++] = key;
+        }
+
+    } // cellChanged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Finish the frame of a move, and pass it to the writer.  A move of
+     * several generations records only their net change:  a cell that was
+     * born and then died again within the move does not appear.
+     *
+     * @param generation The generation reached by the move.
+     **/
+    public void record (long generation) {
+
+        // Sort the changes.  Over several generations, cancel each birth
+        // against a death of the same cell; a cell's births and deaths
+        // alternate, so at most one of either is left.
+        sort(_births, _birthCount);
+        sort(_deaths, _deathCount);
+        int births = 0;
+        int deaths = 0;
+        int i      = 0;
+        int j      = 0;
+        if (generation - _generation <= 1) {
+            i = births = _birthCount;
+            j = deaths = _deathCount;
+        }
+        while ((i < _birthCount) && (j < _deathCount)) {
+            if (_births[i] < _deaths[j]) {
+                _births[births++] = _births[i++];
+            } else if (_births[i] > _deaths[j]) {
+                _deaths[deaths++] = _deaths[j++];
+            } else {
+                i += 1;
+                j += 1;
+            }
+        }
+        while (i < _birthCount) {
+            _births[births++] = _births[i++];
+        }
+        while (j < _deathCount) {
+            _deaths[deaths++] = _deaths[j++];
+        }
+
+        writeVarint(generation - _generation);
+        writeRuns(_births, births);
+        writeRuns(_deaths, deaths);
+        enqueue(Arrays.copyOf(_frame, _length));
+
+        _generation = generation;
+        _birthCount = 0;
+        _deathCount = 0;
+        _length     = 0;
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait for every frame to be written, and close the file.
+     **/
+    public void finish () {
+
+        enqueue(_end);
+        try {
+            _writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (_failure != null) {
+            System.err.println("WARNING: Cannot write the delta file " +
+                               _path + ": " + _failure.getMessage());
+        }
+
+    } // finish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Sort a move's changes by row and column.  The engines report the cells
+     * of each row in order, or nearly so, so a move with many changes is
+     * sorted by row alone, in time proportional to the changes and the
+     * rows, and then any row out of order is sorted by itself.
+     *
+     * @param cells The cells, each as its row above its column.
+     * @param count The number of cells.
+     **/
+    private void sort (long[] cells, int count) {
+
+        int rows = _rows;
+        if (count < rows) {
+            Arrays.sort(cells, 0, count);
+            return;
+        }
+
+        if (_scratch.length < count) {
+            _scratch = new long[cells.length];
+        }
+        Arrays.fill(_rowStarts, 0);
+        for (int cell = 0; cell < count; cell += 1) {
+            _rowStarts[(int)(cells[cell] >>> 32) + 1] += 1;
+        }
+        for (int row = 0; row < rows; row += 1) {
+            _rowStarts[row + 1] += _rowStarts[row];
+        }
+        for (int cell = 0; cell < count; cell += 1) {
+            _scratch[_rowStarts[(int)(cells[cell] >>> 32)]++] = cells[cell];
+        }
+
+        // Each row's start has moved up to the next row's.
+        int start = 0;
+        for (int row = 0; row < rows; row += 1) {
+            int end = _rowStarts[row];
+            for (int cell = start + 1; cell < end; cell += 1) {
+                if (_scratch[cell] < _scratch[cell - 1]) {
+                    Arrays.sort(_scratch, start, end);
+                    break;
+                }
+            }
+            start = end;
+        }
+        System.arraycopy(_scratch, 0, cells, 0, count);
+
+    } // sort ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode a sorted set of cells as runs within rows.
+     *
+     * @param cells The cells, each as its row above its column.
+     * @param count The number of cells.
+     **/
+    private void writeRuns (long[] cells, int count) {
+
+        int runs = 0;
+        for (int cell = 0; cell < count; cell += 1) {
+            if ((cell == 0) || (cells[cell] != cells[cell - 1] + 1)) {
+                runs += 1;
+            }
+        }
+        writeVarint(runs);
+        reserve(runs * _runBytes);
+
+        long lastRow    = 0;
+        long nextColumn = 0;
+        int  cell       = 0;
+        while (cell < count) {
+            int start = cell;
+            cell += 1;
+            while ((cell < count) && (cells[cell] == cells[cell - 1] + 1)) {
+                cell += 1;
+            }
+            long row    = cells[start] >>> 32;
+            long column = cells[start] & 0xffffffffL;
+            if (row != lastRow) {
+                nextColumn = 0;
+            }
+            appendVarint(row - lastRow);
+            appendVarint(column - nextColumn);
+            appendVarint(cell - start - 1);
+            lastRow    = row;
+            nextColumn = column + (cell - start);
+        }
+
+    } // writeRuns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append an unsigned varint to the frame, making room for it.
+     **/
+    private void writeVarint (long value) {
+
+        reserve(10);
+        appendVarint(value);
+
+    } // writeVarint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room in the frame for more bytes.
+     **/
+    private void reserve (long bytes) {
+
+        if (_length + bytes > _frame.length) {
+            _frame = Arrays.copyOf(_frame,
+                                   (int)Math.max(_frame.length * 2L,
+                                                 _length + bytes));
+        }
+
+    } // reserve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append an unsigned varint to the frame, for which room has been made.
+     **/
+    private void appendVarint (long value) {
+
+        while ((value & ~0x7fL) != 0) {
+            _frame[_length++] = (byte)((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        _frame[_length++] = (byte)value;
+
+    } // appendVarint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand a frame to the writer, waiting if it is too far behind.
+     **/
+    private void enqueue (byte[] frame) {
+
+        try {
+            _queue.put(frame);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+    } // enqueue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the frames to the file as they come, until the last.  The file
+     * is flushed whenever the game pauses, so that it keeps up with a game
+     * that is being watched.  After a failure, the frames are only taken and
+     * dropped, so that the game is never held up.
+     *
+     * @param out The file.
+     **/
+    private void write (OutputStream out) {
+
+        try {
+            while (true) {
+                byte[] frame = _queue.poll(_flushMillis,
+                                           TimeUnit.MILLISECONDS);
+                if (frame == _end) {
+                    break;
+                }
+                try {
+                    if (frame == null) {
+                        out.flush();
+                    } else if (_failure == null) {
+                        out.write(frame);
+                    }
+                } catch (IOException e) {
+                    _failure = e;
+                }
+            }
+            out.close();
+        } catch (IOException e) {
+            if (_failure == null) {
+                _failure = e;
+            }
+        } catch (InterruptedException e) {
+            // The game is going away.
+        }
+
+    } // write ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The bytes that start every delta file.
+     **/
+    private final static byte[] _magic = { 'L', 'I', 'F', 'D' };
+
+    /**
+     * The version of the format written.
+     **/
+    private final static int _version = 1;
+
+    /**
+     * The frame that tells the writer there are no more.
+     **/
+    private final static byte[] _end = new byte[0];
+
+    /**
+     * The number of changes for which room is made at first.
+     **/
+    private final static int _initialCells = 1024;
+
+    /**
+     * The number of bytes of frame for which room is made at first.
+     **/
+    private final static int _initialBytes = 4096;
+
+    /**
+     * The most bytes taken by one run:  three varints of up to 32 bits.
+     **/
+    private final static int _runBytes = 15;
+
+    /**
+     * The number of frames that may wait for the writer.
+     **/
+    private final static int _queuedFrames = 64;
+
+    /**
+     * The size of the buffer on the file.
+     **/
+    private final static int _bufferSize = 1 << 16;
+
+    /**
+     * How long the writer waits for a frame before flushing the file, in
+     * milliseconds.
+     **/
+    private final static long _flushMillis = 100;
+
+    /**
+     * The pathname of the delta file.
+     **/
+    private final String _path;
+
+    /**
+     * The number of rows recorded.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns recorded.
+     **/
+    private final int _columns;
+
+    /**
+     * The cells born since the last frame, each as its row above its column.
+     **/
+    private long[] _births;
+
+    /**
+     * The number of cells in <code>_births</code>.
+     **/
+    private int _birthCount;
+
+    /**
+     * The cells that died since the last frame.
+     **/
+    private long[] _deaths;
+
+    /**
+     * The number of cells in <code>_deaths</code>.
+     **/
+    private int _deathCount;
+
+    /**
+     * Room for sorting the changes by row.
+     **/
+    private long[] _scratch;
+
+    /**
+     * The index at which each row's changes start while sorting, with one
+     * more for the end of the last row.
+     **/
+    private final int[] _rowStarts;
+
+    /**
+     * The frame being encoded.
+     **/
+    private byte[] _frame;
+
+    /**
+     * The number of bytes in <code>_frame</code>.
+     **/
+    private int _length;
+
+    /**
+     * The generation of the last frame.
+     **/
+    private long _generation;
+
+    /**
+     * The frames waiting to be written.
+     **/
+    private final BlockingQueue<byte[]> _queue;
+
+    /**
+     * The thread that writes the frames.
+     **/
+    private final Thread _writer;
+
+    /**
+     * The failure that stopped the writing, if any.
+     **/
+    private volatile IOException _failure;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DeltaRecorder
+// =============================================================================
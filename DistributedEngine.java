@@ -0,0 +1,645 @@
+// =============================================================================
+/**
+ * The <code>DistributedEngine</code> class.  Evolve a universe split into
+ * bands of whole rows, each owned by a separate worker process, so that the
+ * universe can outgrow the memory and cores of one JVM.  This engine is the
+ * coordinator:  it starts the workers on this host, hands each its cells,
+ * and drives every generation, which no worker starts until told to and
+ * which is done only once every worker has answered.  The workers trade
+ * their edge rows with each other directly; see
+ * <code>DistributedWorker</code>.
+ *
+ * The workers run the same JVM, class path, and JVM options as the
+ * coordinator.  The cells of the current generation stay with the workers;
+ * the coordinator fetches a copy of the whole universe only when a cell is
+ * examined, as by a displayed board or a checkpoint, and keeps it until the
+ * next generation.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+// =============================================================================
+
+
+
+// =============================================================================
+public class DistributedEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells, evolved by
+     * the given rule in the given number of worker processes.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param rule The rule by which the cells live and die.
+     * @param workers The number of worker processes, each of which owns at
+     *                least one row.
+     **/
+    public DistributedEngine (int rows, int columns, Rule rule, int workers) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+        if ((workers <= 0) || (workers > rows)) {
+            Support.abort("ERROR: workers must be from 1 to the number of " +
+                          "rows: " + workers);
+        }
+
+        _rows     = rows;
+        _columns  = columns;
+        _words    = (columns + 63) >>> 6;
+        _first    = new int[workers + 1];
+        _in       = new DataInputStream[workers];
+        _out      = new DataOutputStream[workers];
+        _sockets  = new Socket[workers];
+        _processes = new Process[workers];
+        for (int worker = 0; worker <= workers; worker += 1) {
+            _first[worker] = (int)((long)rows * worker / workers);
+        }
+
+        // End the workers even if the game is never closed.
+        _shutdownHook = new Thread(this::stop);
+        Runtime.getRuntime().addShutdownHook(_shutdownHook);
+
+        try {
+            start(rule);
+        } catch (IOException e) {
+            stop();
+            Support.abort("ERROR: Cannot start the workers: " +
+                          e.getMessage());
+        }
+
+    } // DistributedEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start the workers, wait for each to connect, and then give each its
+     * band and the port of the worker above, to which it links.
+     **/
+    private void start (Rule rule) throws IOException {
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        int         workers  = _in.length;
+        try (ServerSocket server = new ServerSocket(0, workers, loopback)) {
+
+            // The workers run the same JVM as this one, and share its output.
+            server.setSoTimeout(_connectTimeout);
+            List<String> command = new ArrayList<String>();
+            command.add(ProcessHandle.current()
+                                     .info()
+                                     .command()
+                                     .orElse(System.getProperty("java.home") +
+                                             "/bin/java"));
+            command.addAll(ManagementFactory.getRuntimeMXBean()
+                                            .getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("DistributedWorker");
+            command.add(Integer.toString(server.getLocalPort()));
+            command.add("");
+            for (int worker = 0; worker < workers; worker += 1) {
+                command.set(command.size() - 1, Integer.toString(worker));
+                _processes[worker] = new ProcessBuilder(command)
+                                         .inheritIO()
+                                         .start();
+            }
+
+            // Each worker names itself and the port on which it listens.
+            int[] ports = new int[workers];
+            for (int i = 0; i < workers; i += 1) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream in = DistributedWorker.input(socket);
+                int worker = in.readInt();
+                if ((worker < 0) || (worker >= workers) ||
+                    (_sockets[worker] != null)) {
+                    socket.close();
+                    throw new IOException("Unexpected worker " + worker);
+                }
+                _sockets[worker] = socket;
+                _in[worker]      = in;
+                _out[worker]     = DistributedWorker.output(socket);
+                ports[worker]    = in.readInt();
+            }
+
+            for (int worker = 0; worker < workers; worker += 1) {
+                DataOutputStream out = _out[worker];
+                out.writeInt(_columns);
+                out.writeInt(_first[worker]);
+                out.writeInt(_first[worker + 1] - _first[worker]);
+                out.writeInt(rule.getBirths());
+                out.writeInt(rule.getSurvivals());
+                out.writeInt((worker > 0) ? ports[worker - 1] : -1);
+                out.writeBoolean(worker + 1 < workers);
+                out.flush();
+            }
+            for (int worker = 0; worker < workers; worker += 1) {
+                if (_in[worker].readInt() != DistributedWorker.READY) {
+                    throw new IOException("Worker " + worker + " failed");
+                }
+            }
+
+        }
+
+    } // start ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Let the workers go.  Each reaches the end of its connection and exits
+     * on its own; any that has not done so after a while is ended.
+     **/
+    public void close () {
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(_shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is already exiting, and the hook ends the workers.
+        }
+
+        closeSockets();
+        for (int worker = 0; worker < _processes.length; worker += 1) {
+            Process process = _processes[worker];
+            try {
+                if ((process != null) &&
+                    !process.waitFor(_exitTimeout, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Close the connections and end the worker processes.
+     **/
+    private void stop () {
+
+        closeSockets();
+        for (int worker = 0; worker < _processes.length; worker += 1) {
+            if (_processes[worker] != null) {
+                _processes[worker].destroy();
+            }
+        }
+
+    } // stop ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Close the connection to each worker.
+     **/
+    private void closeSockets () {
+
+        for (int worker = 0; worker < _sockets.length; worker += 1) {
+            try {
+                if (_sockets[worker] != null) {
+                    _sockets[worker].close();
+                }
+            } catch (IOException e) {
+                // The worker is going away regardless.
+            }
+        }
+
+    } // closeSockets ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Give up on the game after losing touch with a worker.
+     **/
+    private void fail (IOException e) {
+
+        stop();
+        Support.abort("ERROR: Lost touch with a worker: " + e.getMessage());
+
+    } // fail ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return ((fetch()[row][column >>> 6] >>> column) & 1L) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle of the fetched copy a word at a
+     * time.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        long[][] cells = fetch();
+        long     count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            count += BitEngine.countBits(cells[row], left, left + columns);
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        makeAlive(new int[] { row, column }, 1);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send the cells to the workers that own their rows.  The copy of the
+     * universe, if any, is kept up to date along with the population;
+     * otherwise the population is counted anew when next asked for.
+     **/
+    public void makeAlive (int[] cells, int count) {
+
+        int   workers = _out.length;
+        int[] owner   = new int[count];
+        int[] counts  = new int[workers];
+        for (int i = 0; i < count; i += 1) {
+            owner[i] = owner(cells[i * 2]);
+            counts[owner[i]] += 1;
+        }
+
+        try {
+            for (int worker = 0; worker < workers; worker += 1) {
+                if (counts[worker] == 0) {
+                    continue;
+                }
+                DataOutputStream out = _out[worker];
+                out.writeInt(DistributedWorker.CELLS);
+                out.writeInt(counts[worker]);
+                for (int i = 0; i < count; i += 1) {
+                    if (owner[i] == worker) {
+                        out.writeInt(cells[i * 2]);
+                        out.writeInt(cells[i * 2 + 1]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+
+        for (int i = 0; i < count; i += 1) {
+            if (_copy != null) {
+                long[] words = _copy[cells[i * 2]];
+                int    word  = cells[i * 2 + 1] >>> 6;
+                long   bit   = 1L << cells[i * 2 + 1];
+                if ((words[word] & bit) == 0) {
+                    _population += 1;
+                }
+                words[word] |= bit;
+            } else {
+                _populationKnown = false;
+            }
+        }
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have every worker calculate the next generation of its band, and wait
+     * for all of them to finish.
+     **/
+    public void evolve () {
+
+        long births = 0;
+        long deaths = 0;
+        try {
+            for (int worker = 0; worker < _out.length; worker += 1) {
+                _out[worker].writeInt(DistributedWorker.EVOLVE);
+                _out[worker].flush();
+            }
+            for (int worker = 0; worker < _in.length; worker += 1) {
+                births += _in[worker].readLong();
+                deaths += _in[worker].readLong();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have every worker adopt the next generation.  The command is sent
+     * along with the next one, since nothing is waited for.
+     **/
+    public void advance () {
+
+        try {
+            for (int worker = 0; worker < _out.length; worker += 1) {
+                _out[worker].writeInt(DistributedWorker.ADVANCE);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+
+        _copy        = null;
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        if (!_populationKnown) {
+            long population = 0;
+            try {
+                for (int worker = 0; worker < _out.length; worker += 1) {
+                    _out[worker].writeInt(DistributedWorker.POPULATION);
+                    _out[worker].flush();
+                }
+                for (int worker = 0; worker < _in.length; worker += 1) {
+                    population += _in[worker].readLong();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            _population      = population;
+            _populationKnown = true;
+        }
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void getRow (int row, long[] words, int offset) {
+
+        System.arraycopy(fetch()[row], 0, words, offset, _words);
+
+    } // getRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the copy of the current generation, fetching every band from
+     * its worker if the copy is out of date.
+     *
+     * @return The rows of the universe, packed as in <code>BitEngine</code>.
+     **/
+    private long[][] fetch () {
+
+        if (_copy == null) {
+            long[][] copy = new long[_rows][_words];
+            try {
+                for (int worker = 0; worker < _out.length; worker += 1) {
+                    _out[worker].writeInt(DistributedWorker.ROWS);
+                    _out[worker].flush();
+                }
+                for (int worker = 0; worker < _in.length; worker += 1) {
+                    for (int row = _first[worker]; row < _first[worker + 1];
+                         row += 1) {
+                        DistributedWorker.readRow(_in[worker], copy[row]);
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            _copy = copy;
+        }
+
+        return _copy;
+
+    } // fetch ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the worker that owns a row.
+     **/
+    private int owner (int row) {
+
+        int low  = 0;
+        int high = _out.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (_first[middle] <= row) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+
+    } // owner ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * How long to wait for the workers to start and connect, in
+     * milliseconds.
+     **/
+    private final static int _connectTimeout = 60000;
+
+    /**
+     * How long to wait for each worker to exit once let go, in milliseconds.
+     **/
+    private final static int _exitTimeout = 5000;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The number of words that hold each row.
+     **/
+    private final int _words;
+
+    /**
+     * The first row of each worker's band, and the number of rows after the
+     * last band.
+     **/
+    private final int[] _first;
+
+    /**
+     * The worker processes.
+     **/
+    private final Process[] _processes;
+
+    /**
+     * The connection to each worker.
+     **/
+    private final Socket[] _sockets;
+
+    /**
+     * The thread that ends the workers if the JVM exits before the game is
+     * closed.
+     **/
+    private final Thread _shutdownHook;
+
+    /**
+     * The replies from each worker.
+     **/
+    private final DataInputStream[] _in;
+
+    /**
+     * The commands to each worker.
+     **/
+    private final DataOutputStream[] _out;
+
+    /**
+     * A copy of the current generation, or <code>null</code> if none has
+     * been fetched since the last generation.
+     **/
+    private long[][] _copy;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * Whether <code>_population</code> counts every cell brought to life.
+     **/
+    private boolean _populationKnown = true;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DistributedEngine
+// =============================================================================
@@ -0,0 +1,458 @@
+// =============================================================================
+/**
+ * The <code>DistributedWorker</code> class.  One worker process of a
+ * <code>DistributedEngine</code>, which owns one band of whole rows of the
+ * universe and evolves it on the coordinator's command.
+ *
+ * A worker holds its rows packed one bit per cell, as in
+ * <code>BitEngine</code>, with a halo row above and below.  Before each
+ * generation it sends its first row to the worker above and its last row to
+ * the worker below, over sockets on the loopback interface, and receives
+ * theirs into its halo rows.  The halo rows of the first and last bands are
+ * never received, and stay dead, just as the rows beyond the edges of a
+ * bounded universe.  Since each band spans every column, no halo columns
+ * are needed.
+ *
+ * A worker is started by the coordinator, never by hand:
+ * <code>java DistributedWorker</code> <i>port</i> <i>index</i>.  It exits
+ * when the coordinator closes its connection.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+// =============================================================================
+
+
+
+// =============================================================================
+public class DistributedWorker {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The worker's entry point.  Connect to the coordinator, set up the band
+     * and the links to the neighboring workers, and then obey commands until
+     * the coordinator goes away.
+     *
+     * @param args The coordinator's port on the loopback interface, and this
+     *             worker's index from 0.
+     **/
+    public static void main (String[] args) {
+
+        try {
+            new DistributedWorker(Integer.parseInt(args[0]),
+                                  Integer.parseInt(args[1])).serve();
+        } catch (EOFException e) {
+            // The coordinator is done.
+        } catch (IOException e) {
+            Support.abort("ERROR: Worker " + args[1] + ": " + e.getMessage());
+        }
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Report to the coordinator, receive the band, and
+     * connect to the neighbors.  Each worker connects to the one above and
+     * accepts the one below, which the coordinator tells it about only once
+     * every worker is listening.
+     *
+     * @param port The coordinator's port.
+     * @param index This worker's index, from 0 at the top.
+     * @throws IOException If the coordinator or a neighbor cannot be reached.
+     **/
+    private DistributedWorker (int port, int index) throws IOException {
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        Socket      control  = new Socket(loopback, port);
+        control.setTcpNoDelay(true);
+        _in  = input(control);
+        _out = output(control);
+
+        try (ServerSocket server = new ServerSocket(0, 1, loopback)) {
+
+            _out.writeInt(index);
+            _out.writeInt(server.getLocalPort());
+            _out.flush();
+
+            int columns   = _in.readInt();
+            _firstRow     = _in.readInt();
+            _bandRows     = _in.readInt();
+            _rule         = new Rule(_in.readInt(), _in.readInt());
+            int abovePort = _in.readInt();
+            boolean below = _in.readBoolean();
+
+            _words    = (columns + 63) >>> 6;
+            _lastMask = ((columns & 63) == 0) ? -1L
+                                              : (1L << (columns & 63)) - 1;
+            _current  = new long[_bandRows + 2][_words];
+            _next     = new long[_bandRows + 2][_words];
+            _parity   = index & 1;
+
+            if (abovePort >= 0) {
+                Socket socket = new Socket(loopback, abovePort);
+                socket.setTcpNoDelay(true);
+                _aboveIn  = input(socket);
+                _aboveOut = output(socket);
+            }
+            if (below) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                _belowIn  = input(socket);
+                _belowOut = output(socket);
+            }
+
+        }
+
+        _out.writeInt(READY);
+        _out.flush();
+
+    } // DistributedWorker ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Obey the coordinator's commands until it closes the connection.
+     *
+     * @throws EOFException When the coordinator is done.
+     * @throws IOException If a connection fails or a command is unknown.
+     **/
+    private void serve () throws IOException {
+
+        while (true) {
+            int command = _in.readInt();
+            if (command == CELLS) {
+                int count = _in.readInt();
+                for (int i = 0; i < count; i += 1) {
+                    int row    = _in.readInt() - _firstRow + 1;
+                    int column = _in.readInt();
+                    _current[row][column >>> 6] |= 1L << column;
+                }
+            } else if (command == EVOLVE) {
+                exchange();
+                evolve();
+                _out.writeLong(_births);
+                _out.writeLong(_deaths);
+                _out.flush();
+            } else if (command == ADVANCE) {
+                long[][] swap = _current;
+                _current = _next;
+                _next = swap;
+            } else if (command == POPULATION) {
+                long population = 0;
+                for (int row = 1; row <= _bandRows; row += 1) {
+                    for (int word = 0; word < _words; word += 1) {
+                        population += Long.bitCount(_current[row][word]);
+                    }
+                }
+                _out.writeLong(population);
+                _out.flush();
+            } else if (command == ROWS) {
+                for (int row = 1; row <= _bandRows; row += 1) {
+                    writeRow(_out, _current[row]);
+                }
+                _out.flush();
+            } else {
+                throw new IOException("Unknown command " + command);
+            }
+        }
+
+    } // serve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Trade edge rows with the neighbors, filling in the halo rows.  Each
+     * link is used by one pair of workers, one of which writes first while
+     * the other reads first, so that neither blocks on a full socket buffer.
+     * The links between an even worker and the odd one below it go first,
+     * and the rest second, so that no worker waits on two links at once.
+     **/
+    private void exchange () throws IOException {
+
+        for (int phase = 0; phase < 2; phase += 1) {
+            if ((phase == _parity) && (_belowOut != null)) {
+                writeRow(_belowOut, _current[_bandRows]);
+                _belowOut.flush();
+                readRow(_belowIn, _current[_bandRows + 1]);
+            } else if ((phase != _parity) && (_aboveOut != null)) {
+                readRow(_aboveIn, _current[0]);
+                writeRow(_aboveOut, _current[1]);
+                _aboveOut.flush();
+            }
+        }
+
+    } // exchange ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of the band, a word at a time.
+     **/
+    private void evolve () {
+
+        long births = 0;
+        long deaths = 0;
+        for (int row = 1; row <= _bandRows; row += 1) {
+
+            long[] above  = _current[row - 1];
+            long[] middle = _current[row];
+            long[] below  = _current[row + 1];
+            long[] result = _next[row];
+            for (int word = 0; word < _words; word += 1) {
+
+                boolean hasWest    = (word > 0);
+                boolean hasEast    = (word + 1 < _words);
+                long    aboveWest  = hasWest ? above[word - 1]  : 0;
+                long    middleWest = hasWest ? middle[word - 1] : 0;
+                long    belowWest  = hasWest ? below[word - 1]  : 0;
+                long    aboveEast  = hasEast ? above[word + 1]  : 0;
+                long    middleEast = hasEast ? middle[word + 1] : 0;
+                long    belowEast  = hasEast ? below[word + 1]  : 0;
+
+                long next = BitEngine.nextWord(
+                                _rule,
+                                BitEngine.west(above[word], aboveWest),
+                                above[word],
+                                BitEngine.east(above[word], aboveEast),
+                                BitEngine.west(middle[word], middleWest),
+                                middle[word],
+                                BitEngine.east(middle[word], middleEast),
+                                BitEngine.west(below[word], belowWest),
+                                below[word],
+                                BitEngine.east(below[word], belowEast));
+
+                // Cells past the last column never come to life.
+                if (!hasEast) {
+                    next &= _lastMask;
+                }
+
+                result[word] = next;
+                long diff = next ^ middle[word];
+                births += Long.bitCount(diff & next);
+                deaths += Long.bitCount(diff & middle[word]);
+
+            }
+
+        }
+
+        _births = births;
+        _deaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send one row of packed cells.
+     **/
+    static void writeRow (DataOutputStream out, long[] row)
+        throws IOException {
+
+        for (int word = 0; word < row.length; word += 1) {
+            out.writeLong(row[word]);
+        }
+
+    } // writeRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive one row of packed cells.
+     **/
+    static void readRow (DataInputStream in, long[] row) throws IOException {
+
+        for (int word = 0; word < row.length; word += 1) {
+            row[word] = in.readLong();
+        }
+
+    } // readRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wrap a socket's input in a buffered data stream.
+     **/
+    static DataInputStream input (Socket socket) throws IOException {
+
+        return new DataInputStream(
+            new BufferedInputStream(socket.getInputStream(), _bufferSize));
+
+    } // input ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wrap a socket's output in a buffered data stream.
+     **/
+    static DataOutputStream output (Socket socket) throws IOException {
+
+        return new DataOutputStream(
+            new BufferedOutputStream(socket.getOutputStream(), _bufferSize));
+
+    } // output ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The reply of a worker that is linked to its neighbors.
+     **/
+    final static int READY = 0;
+
+    /**
+     * The command to bring cells to life:  a count, and then the row and
+     * column of each cell.
+     **/
+    final static int CELLS = 1;
+
+    /**
+     * The command to calculate the next generation, answered with the
+     * numbers of births and deaths.
+     **/
+    final static int EVOLVE = 2;
+
+    /**
+     * The command to adopt the next generation, which is not answered.
+     **/
+    final static int ADVANCE = 3;
+
+    /**
+     * The command to count the live cells, answered with the count.
+     **/
+    final static int POPULATION = 4;
+
+    /**
+     * The command to send every row of the band, answered with the rows.
+     **/
+    final static int ROWS = 5;
+
+    /**
+     * The size of the buffer on each stream.
+     **/
+    private final static int _bufferSize = 1 << 16;
+
+    /**
+     * The commands from the coordinator.
+     **/
+    private final DataInputStream _in;
+
+    /**
+     * The replies to the coordinator.
+     **/
+    private final DataOutputStream _out;
+
+    /**
+     * The rows from the worker above, or <code>null</code> for the top band.
+     **/
+    private DataInputStream _aboveIn;
+
+    /**
+     * The rows to the worker above.
+     **/
+    private DataOutputStream _aboveOut;
+
+    /**
+     * The rows from the worker below, or <code>null</code> for the bottom
+     * band.
+     **/
+    private DataInputStream _belowIn;
+
+    /**
+     * The rows to the worker below.
+     **/
+    private DataOutputStream _belowOut;
+
+    /**
+     * Whether this worker's index is even (0) or odd (1), which orders its
+     * exchanges.
+     **/
+    private final int _parity;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The first row of the universe in this band.
+     **/
+    private final int _firstRow;
+
+    /**
+     * The number of rows in this band.
+     **/
+    private final int _bandRows;
+
+    /**
+     * The number of words that hold each row.
+     **/
+    private final int _words;
+
+    /**
+     * The bits of the last word of each row that hold real columns.
+     **/
+    private final long _lastMask;
+
+    /**
+     * The current generation of the band, between its two halo rows.
+     **/
+    private long[][] _current;
+
+    /**
+     * The next generation of the band, as calculated by
+     * <code>evolve()</code>.
+     **/
+    private long[][] _next;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _births;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _deaths;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DistributedWorker
+// =============================================================================
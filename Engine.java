@@ -0,0 +1,280 @@
+// =============================================================================
+/**
+ * An <code>Engine</code> stores the state of a <i>Game of Life</i> universe and
+ * computes its evolution from one generation to the next.  Like a
+ * <code>Cell</code>, an engine evolves in two phases:  first it calculates the
+ * next generation from the current one, and then it advances to that next
+ * generation.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the universe.
+     *
+     * @return The number of rows in the universe.
+     **/
+    public int getRows ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the universe.
+     *
+     * @return The number of columns in the universe.
+     **/
+    public int getColumns ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the universe is only as large as its rows and
+     * columns.  By default, it is.
+     *
+     * @return <code>false</code> if cells may live outside the rows and
+     *         columns, as in an unbounded universe; <code>true</code>
+     *         otherwise.
+     **/
+    public default boolean isBounded () {
+
+        return true;
+
+    } // isBounded ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     * The coordinates must lie within the universe.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead.
+     **/
+    public boolean isAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.  The coordinates must
+     * lie within the universe.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set many cells to be alive at once.  The coordinates must lie within
+     * the universe.  By default, this sets each cell in turn.
+     *
+     * @param cells The row and column of each cell, one after the other.
+     * @param count The number of cells, which is half the number of
+     *              coordinates used.
+     **/
+    public default void makeAlive (int[] cells, int count) {
+
+        for (int i = 0; i < count; i += 1) {
+            makeAlive(cells[i * 2], cells[i * 2 + 1]);
+        }
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the state of every cell in the next generation without
+     * changing the current generation.
+     **/
+    public void evolve ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance to the generation calculated by the last call to
+     * <code>evolve()</code>.
+     **/
+    public void advance ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance by the given number of generations.  By default, this evolves
+     * and advances one generation at a time; engines that can jump ahead
+     * replace it.
+     *
+     * @param generations The number of generations to advance.
+     **/
+    public default void advanceBy (long generations) {
+
+        for (long i = 0; i < generations; i += 1) {
+            evolve();
+            advance();
+        }
+
+    } // advanceBy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Report every later birth and death to a listener, during
+     * <code>advance()</code>.  Cells set alive with <code>makeAlive()</code>
+     * are not reported.  By default, an engine cannot report its changes.
+     *
+     * @param listener The listener to tell, or <code>null</code> for none.
+     **/
+    public default void setChangeListener (ChangeListener listener) {
+
+        if (listener != null) {
+            Support.abort("ERROR: The " + getClass().getName() +
+                          " cannot report changes to cells");
+        }
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the current generation.
+     **/
+    public long getPopulation ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Release whatever the engine holds beyond its memory, such as other
+     * processes, once the game is done.  The engine must not be used
+     * afterwards.  By default, there is nothing to release.
+     **/
+    public default void close () {
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle, which must lie within the
+     * universe.  By default, this examines each cell in turn.
+     *
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param rows The number of rows in the rectangle.
+     * @param columns The number of columns in the rectangle.
+     * @return The number of live cells in the rectangle.
+     **/
+    public default long getPopulation (int top,
+                                       int left,
+                                       int rows,
+                                       int columns) {
+
+        long count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            for (int column = left; column < left + columns; column += 1) {
+                if (isAlive(row, column)) {
+                    count += 1;
+                }
+            }
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy the cells of one row as packed bits:  column <i>c</i> is bit
+     * <i>c</i> mod 64 of word <i>c</i> / 64, and the bits past the last
+     * column are clear.  By default, this examines each cell in turn.
+     *
+     * @param row The row to copy, which must lie within the universe.
+     * @param words The array into which to copy the row, which must have
+     *              room for (<code>getColumns()</code> + 63) / 64 words.
+     * @param offset The index in <code>words</code> of the first word.
+     **/
+    public default void getRow (int row, long[] words, int offset) {
+
+        int columns = getColumns();
+        for (int word = 0; word < (columns + 63) >>> 6; word += 1) {
+            words[offset + word] = 0;
+        }
+        for (int column = 0; column < columns; column += 1) {
+            if (isAlive(row, column)) {
+                words[offset + (column >>> 6)] |= 1L << column;
+            }
+        }
+
+    } // getRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells born in the last generation.  An engine
+     * that jumps over many generations at once counts the cells alive after
+     * its last jump that were dead before it.
+     *
+     * @return The number of cells that came to life in the last
+     *         <code>advance()</code>.
+     **/
+    public long getBirths ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that died in the last generation, counted
+     * in the same way as <code>getBirths()</code>.
+     *
+     * @return The number of cells that died in the last
+     *         <code>advance()</code>.
+     **/
+    public long getDeaths ();
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface Engine
+// =============================================================================
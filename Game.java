@@ -12,12 +12,7 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Scanner;
-import java.util.NoSuchElementException;
-import java.util.InputMismatchException;
-import java.io.File;
 import java.io.IOException;
-import java.io.FileNotFoundException;
 // =============================================================================
 
 
@@ -32,14 +27,76 @@ public class Game {
     // DATA MEMBERS
 
     /**
-     * The grid itself.
+     * The engine that holds and evolves the universe.
      **/
-    private Grid _grid;
+    private Engine _engine;
+
+    /**
+     * The threads that share the work of each generation.
+     **/
+    private Bands _bands;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private Rule _rule;
 
     /**
      * The current generation number.
      **/
-    private int _generation;
+    private long _generation;
+
+    /**
+     * The number of generations actually evolved, which leaves out those
+     * skipped past a cycle.
+     **/
+    private long _evolved;
+
+    /**
+     * The number of generations to evolve between displays.
+     **/
+    private long _generationsPerMove;
+
+    /**
+     * What to do once the universe repeats itself:  <code>off</code> to keep
+     * going, <code>stop</code> to stop, or <code>skip</code> to skip ahead to
+     * the last generation.
+     **/
+    private String _cycles;
+
+    /**
+     * The hash of the universe and its recent history, or <code>null</code>
+     * if cycles are not being detected.
+     **/
+    private CycleDetector _detector;
+
+    /**
+     * The measurements of each move, or <code>null</code> if moves are not
+     * being measured.
+     **/
+    private GenerationStats _stats;
+
+    /**
+     * The file to which checkpoints are saved, or <code>null</code> if none.
+     **/
+    private String _checkpointPath;
+
+    /**
+     * The number of generations between checkpoints, or 0 to save only at
+     * the end.
+     **/
+    private int _checkpointEvery;
+
+    /**
+     * The pathname of the file in which to record the changes in each move,
+     * or <code>null</code> if they are not recorded.
+     **/
+    private String _deltaPath;
+
+    /**
+     * The number of cells set alive at once when resuming from a checkpoint.
+     **/
+    private final static int _checkpointBatch = 4096;
     // =========================================================================
 
 
@@ -52,11 +109,68 @@ public class Game {
      *
      * @param initialStatePath The file from which the initial state of the
      *                         universe is taken.
+     * @throws IOException If the initial state cannot be read.
+     **/
+    public Game (String initialStatePath) throws IOException {
+
+	this(initialStatePath, new Options());
+
+    } // Game()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Read the initial state of a game from a
+     * provided pathname into the engine named by the options.  If the file is
+     * a checkpoint, the game resumes from the generation saved in it.
+     *
+     * @param initialStatePath The file from which the initial state of the
+     *                         universe is taken.
+     * @param options The settings for this game.
+     * @throws IOException If the initial state cannot be read.
      **/
-    public Game (String initialStatePath) {
+    public Game (String initialStatePath, Options options)
+	throws IOException {
+
+	// Read the initial state, creating a grid of cells as specified, and
+	// start counting at generation 0 unless resuming.
+	readPlayOptions(options);
+	if (Checkpoint.isCheckpoint(initialStatePath)) {
+	    readCheckpoint(initialStatePath, options);
+	} else {
+	    readInitialState(initialStatePath, options);
+	    _generation = 0;
+	}
+	_engine.setChangeListener(_detector);
+
+    } // Game()
+    // =========================================================================
+
+
 
-	// Read the initial state, creating a grid of cells as specified.
-	readInitialState(initialStatePath);
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a game whose universe starts out
+     * with every cell dead, to be brought to life with
+     * <code>makeAlive()</code>.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param options The settings for this game.
+     **/
+    public Game (int rows, int columns, Options options) {
+
+	readPlayOptions(options);
+	_rule   = readRule(options, Rule.CONWAY);
+	_bands  = new Bands(options.getInt("threads", 1));
+	_engine = createEngine(options,
+			       rows,
+			       columns,
+			       _bands,
+			       _rule);
+	_engine.setChangeListener(_detector);
 
 	// Start counting at generation 0.
 	_generation = 0;
@@ -68,61 +182,303 @@ public class Game {
 
     // =========================================================================
     /**
-     * Read the initial state file, creating a <code>Grid</code> and
-     * initializing it with <code>Cell</code>s as specified by that file.
+     * Read the options that control how the game is played:  how far each
+     * move evolves, and what to do when the universe repeats itself.
      *
-     * @param initialStatePath The file from which the initial state of the
-     *                         universe is taken.
+     * @param options The settings for this game.
      **/
-    private void readInitialState (String initialStatePath) {
+    private void readPlayOptions (Options options) {
 
-	// Create the reader for this file.
-	Scanner reader = null;
-	try {
-	    reader = new Scanner(new File(initialStatePath));
-	} catch (FileNotFoundException e) {
-	    Support.abort("ERROR: File not found: " + initialStatePath);
+	// Display every generation unless asked to jump 2^k at a time.
+	int jump = options.getInt("jump", 0);
+	if ((jump < 0) || (jump > 62)) {
+	    Support.abort("ERROR: The jump must be from 0 to 62: " + jump);
+	}
+	_generationsPerMove = 1L << jump;
+
+	// Hash the universe only if cycles are to be acted upon.
+	_cycles = options.getString("cycles", "off");
+	if (_cycles.equals("stop") || _cycles.equals("skip")) {
+	    _detector = new CycleDetector(options.getInt("cycles.history", 64));
+	} else if (!_cycles.equals("off")) {
+	    Support.abort("ERROR: cycles must be off, stop, or skip: " +
+			  _cycles);
 	}
 
+	// Save checkpoints only if asked to.  A checkpoint holds only the
+	// visible rows and columns, which is not all of an unbounded universe.
+	_checkpointPath  = options.getString("checkpoint.file", null);
+	_checkpointEvery = options.getInt("checkpoint.every", 0);
+	String engineType = options.getString("engine", "Bit");
+	if ((_checkpointPath != null) &&
+	    (engineType.equals("Sparse") || engineType.equals("HashLife"))) {
+	    Support.abort("ERROR: The " + engineType + " engine does not " +
+			  "support checkpoint.file");
+	}
+
+	// Record the changes in each move only if asked to.
+	_deltaPath = options.getString("delta.file", null);
+
+	// Measure each move only if asked to.
+	String stats = options.getString("stats", "off");
+	if (stats.equals("on")) {
+	    _stats = new GenerationStats(options.getInt("stats.window", 1000));
+	} else if (!stats.equals("off")) {
+	    Support.abort("ERROR: stats must be on or off: " + stats);
+	}
+
+    } // readPlayOptions()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the initial state file, creating an <code>Engine</code> and
+     * initializing its cells as specified by that file.  The file is parsed
+     * in parallel chunks, and the cells are then loaded into the engine in
+     * bulk.
+     *
+     * @param initialStatePath The file from which the initial state of the
+     *                         universe is taken.
+     * @param options The settings that select the engine.
+     * @throws IOException If the file cannot be read or holds a bad line.
+     **/
+    private void readInitialState (String initialStatePath, Options options)
+	throws IOException {
+
 	// Read the first line, which contains the dimensions of the grid.
-	int rows    = -1;
-	int columns = -1;
-	try {
-	    rows    = reader.nextInt();
-	    columns = reader.nextInt();
-	} catch (InputMismatchException e) {
-	    Support.abort("ERROR: Invalid dimensions at line 1");
+	_bands = new Bands(options.getInt("threads", 1));
+	InitialStateReader reader = new InitialStateReader(initialStatePath,
+							   _bands);
+
+	// Create an engine with these dimensions, and with the rule named in
+	// the file unless the options name another.
+	_rule   = readRule(options,
+			   (reader.getRule() != null) ? reader.getRule()
+						      : Rule.CONWAY);
+	_engine = createEngine(options,
+			       reader.getRows(),
+			       reader.getColumns(),
+			       _bands,
+			       _rule);
+
+	// Read coordinates for initially live cells, and set them alive.  The
+	// hash of the universe, if kept, must see each cell once.
+	reader.readCells();
+	for (int chunk = 0; chunk < reader.getChunks(); chunk += 1) {
+	    bringToLife(reader.getCells(chunk), reader.getCellCount(chunk));
 	}
 
-	// Create a Grid with these dimensions.
-	_grid = new Grid(rows, columns);
-
-	// Read coordinates for initially live cells until the end-of-file is
-	// reached.
-	int lineNumber = 2;
-	while (true) {
-
-	    int row = -1;
-	    int col = -1;
-	    try {
-		row = reader.nextInt();
-		col = reader.nextInt();
-	    } catch (InputMismatchException e) {
-		Support.abort("ERROR: From initial state file, " +
-			      "could not read coordinates at line " +
-			      lineNumber);
-	    } catch (NoSuchElementException e) {
-		break;
+    } // readInitialState ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Resume a game from a checkpoint, creating an <code>Engine</code> of the
+     * saved dimensions and setting alive the cells saved in it.  The file is
+     * memory-mapped, and only the words that hold live cells cost more than
+     * a glance.
+     *
+     * @param checkpointPath The checkpoint file.
+     * @param options The settings that select the engine.
+     * @throws IOException If the file cannot be read or is corrupt.
+     **/
+    private void readCheckpoint (String checkpointPath, Options options)
+	throws IOException {
+
+	Checkpoint checkpoint = Checkpoint.read(checkpointPath);
+	_rule   = readRule(options, checkpoint.getRule());
+	_bands  = new Bands(options.getInt("threads", 1));
+	_engine = createEngine(options,
+			       checkpoint.getRows(),
+			       checkpoint.getColumns(),
+			       _bands,
+			       _rule);
+	_generation = checkpoint.getGeneration();
+
+	// Gather the live cells of each word into batches.
+	int[] cells = new int[2 * _checkpointBatch];
+	int   count = 0;
+	for (int row = 0; row < checkpoint.getRows(); row += 1) {
+	    for (int word = 0; word < checkpoint.getWords(); word += 1) {
+		long bits = checkpoint.getWord(row, word);
+		while (bits != 0) {
+		    cells[count * 2]     = row;
+		    cells[count * 2 + 1] = (word << 6) +
+					   Long.numberOfTrailingZeros(bits);
+		    count += 1;
+		    if (count == _checkpointBatch) {
+			bringToLife(cells, count);
+			count = 0;
+		    }
+		    bits &= bits - 1;
+		}
 	    }
-	    
-	    // Set the cell to be alive.
-	    _grid.getCell(row, col).makeAlive();
+	}
+	bringToLife(cells, count);
+
+	if (_engine.getPopulation() != checkpoint.getPopulation()) {
+	    throw new IOException("Corrupt checkpoint: " + checkpointPath);
+	}
+
+    } // readCheckpoint ()
+    // =========================================================================
+
+
 
-	    lineNumber += 1;
+    // =========================================================================
+    /**
+     * Choose the rule of the game:  the one given by the <code>rule</code>
+     * option, such as <code>rule=B36/S23</code>, if any, and otherwise the
+     * one that came with the initial state.
+     *
+     * @param options The settings for this game.
+     * @param given The rule that came with the initial state.
+     * @return The rule to play by.
+     **/
+    private static Rule readRule (Options options, Rule given) {
 
+	String spec = options.getString("rule", null);
+	if (spec == null) {
+	    return given;
 	}
 
-    } // readInitialState ()
+	Rule rule = Rule.parse(spec);
+	if (rule == null) {
+	    Support.abort("ERROR: rule must be B<digits>/S<digits>, " +
+			  "such as B3/S23: " + spec);
+	}
+
+	return rule;
+
+    } // readRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the engine named by the options, with the topology that they
+     * name:  <code>bounded</code>, in which the cells beyond the edges are
+     * dead, or <code>toroidal</code>, in which the edges wrap around.  The
+     * <code>OffHeap</code> engine maps its cells into the file named by
+     * <code>offheap.file</code>, if given, and the <code>Distributed</code>
+     * engine splits them among <code>workers</code> processes, 2 by default.
+     *
+     * @param options The settings that select the engine and topology.
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param rule The rule by which the cells live and die.
+     * @return The new engine, with every cell dead.
+     **/
+    private static Engine createEngine (Options options,
+					int rows,
+					int columns,
+					Bands bands,
+					Rule rule) {
+
+	String topology = options.getString("topology", "bounded");
+	if (!topology.equals("bounded") && !topology.equals("toroidal")) {
+	    Support.abort("ERROR: topology must be bounded or toroidal: " +
+			  topology);
+	}
+
+	return createEngine(options.getString("engine", "Bit"),
+			    rows,
+			    columns,
+			    bands,
+			    topology.equals("toroidal"),
+			    options.getString("offheap.file", null),
+			    options.getInt("workers", 2),
+			    rule);
+
+    } // createEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the engine of the given type.
+     *
+     * @param engineType The name of the engine: <code>Array</code>,
+     *                   <code>Bit</code>, <code>Cell</code>,
+     *                   <code>Distributed</code>, <code>HashLife</code>,
+     *                   <code>OffHeap</code>, <code>Sparse</code>,
+     *                   <code>Table</code>, or <code>Vector</code>, which
+     *                   falls back on <code>Array</code> when the Vector
+     *                   API is not available.
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param toroidal Whether the edges wrap around, which only the
+     *                 <code>Array</code> engine supports.
+     * @param mapFile The file into which the <code>OffHeap</code> engine
+     *                maps its cells, or <code>null</code> to keep them in
+     *                direct memory.
+     * @param workers The number of processes among which the
+     *                <code>Distributed</code> engine splits the universe.
+     * @param rule The rule by which the cells live and die.
+     * @return The new engine, with every cell dead.
+     **/
+    private static Engine createEngine (String engineType,
+					int rows,
+					int columns,
+					Bands bands,
+					boolean toroidal,
+					String mapFile,
+					int workers,
+					Rule rule) {
+
+	if (toroidal && !engineType.equals("Array")) {
+	    Support.abort("ERROR: Only the Array engine supports " +
+			  "topology=toroidal");
+	}
+	if ((mapFile != null) && !engineType.equals("OffHeap")) {
+	    Support.abort("ERROR: Only the OffHeap engine supports " +
+			  "offheap.file");
+	}
+
+	Engine engine = null;
+	if (engineType.equals("Array")) {
+	    engine = new ArrayEngine(rows, columns, bands, toroidal, rule);
+	} else if (engineType.equals("Bit")) {
+	    engine = new BitEngine(rows, columns, bands, rule);
+	} else if (engineType.equals("Cell")) {
+	    engine = new CellEngine(rows, columns, bands, rule);
+	} else if (engineType.equals("Distributed")) {
+	    engine = new DistributedEngine(rows, columns, rule, workers);
+	} else if (engineType.equals("HashLife")) {
+	    engine = new HashLifeEngine(rows, columns, rule);
+	} else if (engineType.equals("OffHeap")) {
+	    engine = new OffHeapEngine(rows, columns, bands, mapFile,
+				       rule);
+	} else if (engineType.equals("Sparse")) {
+	    engine = new SparseEngine(rows, columns, rule);
+	} else if (engineType.equals("Table")) {
+	    engine = new TableEngine(rows, columns, bands, rule);
+	} else if (engineType.equals("Vector")) {
+	    if (ModuleLayer.boot()
+		           .findModule("jdk.incubator.vector")
+		           .isPresent()) {
+		engine = new VectorEngine(rows, columns, bands, rule);
+	    } else {
+		System.err.println("WARNING: The Vector engine needs " +
+				   "--add-modules jdk.incubator.vector; " +
+				   "using the Array engine");
+		engine = new ArrayEngine(rows, columns, bands, false, rule);
+	    }
+	} else {
+	    Support.abort("ERROR: Unknown engine type: " + engineType);
+	}
+
+	return engine;
+
+    } // createEngine ()
     // =========================================================================
 
 
@@ -132,32 +488,189 @@ public class Game {
      * Evolve a game of Life through its generations, emitting the state of the
      * game at each generation.  Evolution will continue until the universe
      * becomes static or until the given maximum number of generations is
-     * reached.
+     * reached.  With the <code>jump=</code><i>k</i> option, each move
+     * evolves 2<sup><i>k</i></sup> generations before the state is shown
+     * again, and the last move stops exactly at the requested generation.
+     *
+     * With <code>cycles=stop</code>, evolution stops as soon as the universe
+     * returns to a recent state, whether static or periodic.  With
+     * <code>cycles=skip</code>, the game instead evolves only as many more
+     * generations as the remainder of the cycle needs, and then jumps the
+     * generation counter straight to the requested generation.
+     *
+     * With <code>checkpoint.file</code>, the game is saved to that file every
+     * <code>checkpoint.every</code> generations, in the background, and once
+     * more at the end.  The unbounded <code>Sparse</code> and
+     * <code>HashLife</code> engines cannot be saved this way, since a
+     * checkpoint holds only the visible rows and columns.
+     *
+     * With <code>delta.file</code>, the births and deaths of each move are
+     * recorded in that file, written in the background.
+     *
+     * With <code>stats=on</code>, each move is measured, the statistics are
+     * published as an MBean while the game plays, and their summary is
+     * printed at the end.  Each move is also recorded as a
+     * <code>GenerationEvent</code> whenever a flight recording enables it.
+     * Otherwise, the clock is not read at all.
      *
      * @param generations The number of generations to evolve.
      **/
-    public void play (int generations, UserInterface ui) {
+    public void play (long generations, UserInterface ui) {
+
+	// Publish the statistics before the initial state is shown, which
+	// starts the clock of some interfaces.
+	if (_stats != null) {
+	    _stats.register();
+	}
 
 	// Show the initial state.
 	ui.display();
+	if (_detector != null) {
+	    _detector.record(_generation);
+	}
+	CheckpointWriter checkpoints = null;
+	if (_checkpointPath != null) {
+	    checkpoints = new CheckpointWriter(_checkpointPath,
+					       _checkpointEvery,
+					       _generation);
+	}
+	DeltaRecorder recorder = null;
+	if (_deltaPath != null) {
+	    recorder = new DeltaRecorder(_deltaPath, this);
+	    _engine.setChangeListener(CompositeListener.combine(_detector,
+							       recorder));
+	}
 
 	// Loop through the generations.
-	for (_generation = 1; _generation <= generations; _generation += 1) {
+	while (_generation < generations) {
 
 	    // Wait for approval for the next move.
 	    ui.triggerMove();
 
-	    // Evolve the game by one step and show it.
-	    evolve();
+	    // Evolve the game by one move, timing its phases if anyone is
+	    // watching.  A move of one generation is split into its evolve and
+	    // commit phases; a longer one, which the engine may jump through,
+	    // is timed as a whole.
+	    GenerationEvent event = new GenerationEvent();
+	    long    move      = Math.min(_generationsPerMove,
+				     generations - _generation);
+	    boolean timed     = (_stats != null) || event.isEnabled();
+	    long    started   = 0;
+	    long    evolved   = 0;
+	    long    committed = 0;
+	    if (timed) {
+		event.begin();
+		started = System.nanoTime();
+		if (move == 1) {
+		    _engine.evolve();
+		    evolved = System.nanoTime();
+		    _engine.advance();
+		    _generation += 1;
+		    _evolved    += 1;
+		} else {
+		    evolve(move);
+		    evolved = System.nanoTime();
+		}
+		committed = System.nanoTime();
+	    } else {
+		evolve(move);
+	    }
+
+	    // Has the universe been here before?  If so, every later state is
+	    // known, so the state at the last generation is a partial cycle
+	    // away.
+	    long period = 0;
+	    if (_detector != null) {
+		period = _detector.record(_generation);
+	    }
+	    if ((period > 0) && _cycles.equals("skip")) {
+		evolve((generations - _generation) % period);
+		_generation = generations;
+	    }
+	    if (recorder != null) {
+		recorder.record(_generation);
+	    }
+
+	    // Show it, and save it if a checkpoint is due.
 	    ui.display();
+	    if (timed) {
+		record(event, move, evolved - started, committed - evolved,
+		       System.nanoTime() - committed);
+	    }
+	    if (checkpoints != null) {
+		checkpoints.offer(this);
+	    }
+	    if (period > 0) {
+		break;
+	    }
 
 	} // evolution loop
 
+	if (checkpoints != null) {
+	    checkpoints.finish(this);
+	}
+	if (recorder != null) {
+	    recorder.finish();
+	    _engine.setChangeListener(_detector);
+	}
+	ui.finish();
+	if (_stats != null) {
+	    _stats.unregister();
+	    System.out.print(_stats);
+	}
+
     } // play ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Report a timed move to the statistics, if kept, and to the flight
+     * recorder, if it wants the event.
+     *
+     * @param event The event for the move, begun when the move began.
+     * @param generations The number of generations evolved by the move.
+     * @param evolveTime The time spent calculating them, in nanoseconds.
+     * @param commitTime The time spent adopting them, in nanoseconds.
+     * @param displayTime The time spent showing the result, in nanoseconds.
+     **/
+    private void record (GenerationEvent event,
+			 long generations,
+			 long evolveTime,
+			 long commitTime,
+			 long displayTime) {
+
+	// The bounded engines examine every cell of the universe in each
+	// generation, or stand in for doing so; the figure stops at the largest
+	// long rather than overflow.  An unbounded universe has no such figure.
+	long cells = 0;
+	if (_engine.isBounded()) {
+	    long size = (long)_engine.getRows() * _engine.getColumns();
+	    cells = ((size > 0) && (generations > Long.MAX_VALUE / size)) ?
+		Long.MAX_VALUE : generations * size;
+	}
+	if (_stats != null) {
+	    _stats.record(generations, evolveTime, commitTime, displayTime,
+			  cells);
+	}
+	if (event.shouldCommit()) {
+	    event.generation    = _generation;
+	    event.generations   = generations;
+	    event.evolveTime    = evolveTime;
+	    event.commitTime    = commitTime;
+	    event.displayTime   = displayTime;
+	    event.births        = _engine.getBirths();
+	    event.deaths        = _engine.getDeaths();
+	    event.cellsExamined = cells;
+	    event.commit();
+	}
+
+    } // record ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Evolve the state of the game's universe from the current generation to
@@ -166,22 +679,31 @@ public class Game {
     public void evolve () {
 
 	// WRITE ME
-		//evolve each cell in grid
-		for (int i = 0; i < getRows(); i++) {
-			for (int j = 0; j < getColumns(); j++) {
-				getCell(i, j).evolve();
-			}
-		}
-
-		//advance each cell in grid based on above evolution
-		for (int i = 0; i < getRows(); i++) {
-			for (int j = 0; j < getColumns(); j++) {
-				getCell(i, j).advance();
-			}
-		}
+		//calculate the next generation, then advance to it
+		_engine.evolve();
+		_engine.advance();
 
 
 		_generation++;
+		_evolved++;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evolve the state of the game's universe by the given number of
+     * generations, letting the engine jump ahead if it can.
+     *
+     * @param generations The number of generations to evolve.
+     **/
+    public void evolve (long generations) {
+
+	_engine.advanceBy(generations);
+	_generation += generations;
+	_evolved    += generations;
 
     } // evolve ()
     // =========================================================================
@@ -194,7 +716,7 @@ public class Game {
      *
      * @return The current generation number for this universe.
      **/
-    public int getGeneration () {
+    public long getGeneration () {
 
 	return _generation;
 
@@ -203,31 +725,101 @@ public class Game {
 
 
 
+    // =========================================================================
+    /**
+     * Provide the number of generations actually evolved.  With
+     * <code>cycles=skip</code>, this leaves out the generations that the
+     * game skipped once the universe began to repeat itself.
+     *
+     * @return The number of generations evolved since the game began.
+     **/
+    public long getGenerationsEvolved () {
+
+	return _evolved;
+
+    } // getGenerationsEvolved()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the number of live cells.
      *
      * @return The number of live cells in the current universe.
      **/ 
-    public int getPopulation () {
+    public long getPopulation () {
 
 	// WRITE ME
-		int count = 0;
-
-		for (int i = 0; i < getRows(); i++) {
-			for (int j = 0; j < getColumns(); j++) {
-				if (getCell(i, j)._isAlive) {
-					count++;
-				}
-			}
-		}
-		return count;
+		return _engine.getPopulation();
 
     } // getPopulation()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle.  The parts of the rectangle that
+     * lie outside the universe hold no live cells.
+     *
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param rows The number of rows in the rectangle.
+     * @param columns The number of columns in the rectangle.
+     * @return The number of live cells in the rectangle.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+	// Clip the rectangle to the universe.
+	long first     = Math.max(top, 0);
+	long last      = Math.min((long)top + rows, getRows());
+	long firstCol  = Math.max(left, 0);
+	long lastCol   = Math.min((long)left + columns, getColumns());
+	if ((first >= last) || (firstCol >= lastCol)) {
+	    return 0;
+	}
+
+	return _engine.getPopulation((int)first,
+				      (int)firstCol,
+				      (int)(last - first),
+				      (int)(lastCol - firstCol));
+
+    } // getPopulation()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells born in the last generation.
+     *
+     * @return The number of cells that came to life.
+     **/
+    public long getBirths () {
+
+	return _engine.getBirths();
+
+    } // getBirths()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that died in the last generation.
+     *
+     * @return The number of cells that died.
+     **/
+    public long getDeaths () {
+
+	return _engine.getDeaths();
+
+    } // getDeaths()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the number of rows in the universe.
@@ -236,7 +828,7 @@ public class Game {
      **/
     public int getRows () {
 
-	return _grid.getRows();
+	return _engine.getRows();
 
     } // getRows()
     // =========================================================================
@@ -251,7 +843,7 @@ public class Game {
      **/
     public int getColumns () {
 
-	return _grid.getColumns();
+	return _engine.getColumns();
 
     } // getColumns()
     // =========================================================================
@@ -260,14 +852,182 @@ public class Game {
 
     // =========================================================================
     /**
-     * Provide direct access to a <code>Cell</code> from this universe.
+     * Indicate whether the universe is only as large as its rows and
+     * columns.
+     *
+     * @return <code>false</code> for the unbounded <code>Sparse</code> and
+     *         <code>HashLife</code> engines; <code>true</code> otherwise.
+     **/
+    public boolean isBounded () {
+
+	return _engine.isBounded();
+
+    } // isBounded()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule by which the cells live and die.
+     *
+     * @return The rule of this game.
+     **/
+    public Rule getRule () {
+
+	return _rule;
+
+    } // getRule()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring one cell of the current generation to life.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if ((row < 0) || (row >= getRows()) ||
+	    (column < 0) || (column >= getColumns())) {
+	    Support.abort("ERROR: Coordinates out of range: " +
+			  row +
+			  ", " +
+			  column);
+	}
+
+	bringToLife(row, column);
+
+    } // makeAlive()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring one cell to life, keeping the hash of the universe up to date.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    private void bringToLife (int row, int column) {
+
+	if (!_engine.isAlive(row, column)) {
+	    _engine.makeAlive(row, column);
+	    if (_detector != null) {
+		_detector.cellChanged(row, column, true);
+	    }
+	}
+
+    } // bringToLife()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring many cells to life, in bulk unless the hash of the universe
+     * must see each one.
+     *
+     * @param cells The row and column of each cell, one after the other.
+     * @param count The number of cells.
+     **/
+    private void bringToLife (int[] cells, int count) {
+
+	if (_detector == null) {
+	    _engine.makeAlive(cells, count);
+	} else {
+	    for (int i = 0; i < count; i += 1) {
+		bringToLife(cells[i * 2], cells[i * 2 + 1]);
+	    }
+	}
+
+    } // bringToLife()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the engine that holds and evolves this universe, for callers
+     * that want its engine-specific statistics.
+     *
+     * @return The engine of this game.
+     **/
+    public Engine getEngine () {
+
+	return _engine;
+
+    } // getEngine()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Release the threads, and any worker processes, held by this game once
+     * it is done.  The game must not evolve afterwards.
+     **/
+    public void close () {
+
+	_engine.close();
+	_bands.close();
+
+    } // close()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell is alive, without creating a <code>Cell</code>
+     * for it.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is within the universe and alive;
+     *         <code>false</code> otherwise.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return ((row >= 0) && (row < getRows()) &&
+		(column >= 0) && (column < getColumns()) &&
+		_engine.isAlive(row, column));
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a <code>Cell</code> that shows the current state of one
+     * position in this universe.  The <code>Cell</code> is a detached copy:
+     * it does not follow later generations, and it cannot evolve itself.
      *
      * @param row The row coordinate of the <code>Cell</code>.
      * @param column The column coordinate of the <code>Cell</code>.
+     * @return If the coordinates are within the universe, the
+     *         <code>Cell</code> at that location; otherwise,
+     *         <code>null</code>.
      **/
     public Cell getCell (int row, int column) {
 
-	return _grid.getCell(row, column);
+	// Is this cell within the universe?
+	if ((row < 0) || (row >= getRows()) ||
+	    (column < 0) || (column >= getColumns())) {
+	    return null;
+	}
+
+	Cell cell = new Cell(null, row, column);
+	if (_engine.isAlive(row, column)) {
+	    cell.makeAlive();
+	}
+
+	return cell;
 
     } // getCell()
     // =========================================================================
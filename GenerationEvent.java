@@ -0,0 +1,106 @@
+// =============================================================================
+/**
+ * The <code>GenerationEvent</code> class.  A flight-recorder event for one
+ * move of a <code>Game</code>:  how long the engine took to calculate the
+ * next generation and to adopt it, how long the interface took to show it,
+ * and what changed.  The event's own duration spans the whole move.
+ *
+ * The event is recorded only when a flight recording enables it, as with
+ * <code>java -XX:StartFlightRecording ...</code>; otherwise the game does not
+ * even read the clock for it.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+// =============================================================================
+
+
+
+// =============================================================================
+@Name("life.Generation")
+@Label("Generation")
+@Category("Game of Life")
+@Description("One move of a game, from its evolution through its display")
+@StackTrace(false)
+public class GenerationEvent extends jdk.jfr.Event {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The generation reached by the move.
+     **/
+    @Label("Generation")
+    long generation;
+
+    /**
+     * The number of generations evolved by the move.
+     **/
+    @Label("Generations")
+    long generations;
+
+    /**
+     * The time spent calculating the next generation.  A move of several
+     * generations at once, which the engine may jump through, counts all of
+     * its time here.
+     **/
+    @Label("Evolve Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long evolveTime;
+
+    /**
+     * The time spent adopting the next generation.
+     **/
+    @Label("Commit Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long commitTime;
+
+    /**
+     * The time spent showing the new generation.
+     **/
+    @Label("Display Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long displayTime;
+
+    /**
+     * The number of cells born in the last generation of the move.
+     **/
+    @Label("Births")
+    long births;
+
+    /**
+     * The number of cells that died in the last generation of the move.
+     **/
+    @Label("Deaths")
+    long deaths;
+
+    /**
+     * The number of cells evolved by the move:  the size of the universe for
+     * each generation, or <code>Long.MAX_VALUE</code> if that is larger.
+     * It is left at zero for the unbounded <code>Sparse</code> and
+     * <code>HashLife</code> engines, whose work does not depend on the size
+     * of the universe.
+     **/
+    @Label("Cells Examined")
+    long cellsExamined;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GenerationEvent
+// =============================================================================
@@ -0,0 +1,312 @@
+// =============================================================================
+/**
+ * The <code>GenerationStats</code> class.  Measure each move of a
+ * <code>Game</code>, and summarize the recent ones:  the median and 99th
+ * percentile of the step latency, which is the time to evolve and commit a
+ * move, and the rate at which cells are evolved.  The total time spent in
+ * each phase, including display, is kept for the whole game.
+ *
+ * While a game plays, its statistics are registered as an MBean, named
+ * <code>GameOfLife:type=GenerationStats,id=</code><i>n</i>, so that they can
+ * be read or dumped on demand from a management tool.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+// =============================================================================
+
+
+
+// =============================================================================
+public class GenerationStats implements GenerationStatsMBean {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Start with no moves measured.
+     *
+     * @param window The number of recent moves to summarize.
+     **/
+    public GenerationStats (int window) {
+
+        if (window <= 0) {
+            Support.abort("ERROR: The stats window must be positive: " +
+                          window);
+        }
+
+        _steps = new long[window];
+        _cells = new long[window];
+
+    } // GenerationStats ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure one move.
+     *
+     * @param generations The number of generations evolved by the move.
+     * @param evolveTime The time spent calculating them, in nanoseconds.
+     * @param commitTime The time spent adopting them, in nanoseconds.
+     * @param displayTime The time spent showing the result, in nanoseconds.
+     * @param cells The number of cells evolved, or zero if unknown.
+     **/
+    public synchronized void record (long generations,
+                                     long evolveTime,
+                                     long commitTime,
+                                     long displayTime,
+                                     long cells) {
+
+        int slot = (int)(_moves % _steps.length);
+        _steps[slot]  = evolveTime + commitTime;
+        _cells[slot]  = cells;
+        _moves       += 1;
+        _generations += generations;
+        _evolveTime  += evolveTime;
+        _commitTime  += commitTime;
+        _displayTime += displayTime;
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public synchronized long getMoves () {
+
+        return _moves;
+
+    } // getMoves ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public double getStepP50Micros () {
+
+        return percentile(0.50) / 1e3;
+
+    } // getStepP50Micros ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public double getStepP99Micros () {
+
+        return percentile(0.99) / 1e3;
+
+    } // getStepP99Micros ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public synchronized double getCellsPerSecond () {
+
+        long   time  = 0;
+        double cells = 0;
+        for (int slot = 0; slot < recent(); slot += 1) {
+            time  += _steps[slot];
+            cells += _cells[slot];
+        }
+
+        return (time == 0) ? 0 : cells / (time / 1e9);
+
+    } // getCellsPerSecond ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public String dump () {
+
+        String summary = toString();
+        System.out.print(summary);
+
+        return summary;
+
+    } // dump ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Describe the statistics in a few lines.
+     *
+     * @return The summary, ending with a newline.
+     **/
+    public synchronized String toString () {
+
+        return String.format("Moves = %d, Generations = %d%n" +
+                             "Step p50 = %.1f us, p99 = %.1f us, " +
+                             "over the last %d moves%n" +
+                             "Cells/sec = %.4g%n" +
+                             "Evolve = %.3f s, Commit = %.3f s, " +
+                             "Display = %.3f s%n",
+                             _moves,
+                             _generations,
+                             getStepP50Micros(),
+                             getStepP99Micros(),
+                             recent(),
+                             getCellsPerSecond(),
+                             _evolveTime / 1e9,
+                             _commitTime / 1e9,
+                             _displayTime / 1e9);
+
+    } // toString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Publish these statistics as an MBean, under a name of their own.  If
+     * that fails, the game plays on unobserved.
+     **/
+    public void register () {
+
+        try {
+            _name = new ObjectName("GameOfLife:type=GenerationStats,id=" +
+                                   _ids.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(this, _name);
+        } catch (JMException e) {
+            System.err.println("WARNING: Cannot register the statistics: " +
+                               e.getMessage());
+            _name = null;
+        }
+
+    } // register ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Withdraw the MBean published by <code>register()</code>, if any.
+     **/
+    public void unregister () {
+
+        if (_name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                                 .unregisterMBean(_name);
+            } catch (JMException e) {
+                // It is gone either way.
+            }
+            _name = null;
+        }
+
+    } // unregister ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find a percentile of the recent step latencies, by the nearest rank.
+     *
+     * @param fraction The percentile, as a fraction from 0 to 1.
+     * @return The latency, in nanoseconds, or 0 if no move was measured.
+     **/
+    private synchronized double percentile (double fraction) {
+
+        int count = recent();
+        if (count == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(_steps, count);
+        Arrays.sort(sorted);
+        int rank = (int)Math.ceil(fraction * count);
+
+        return sorted[Math.max(rank, 1) - 1];
+
+    } // percentile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of moves in the window.
+     **/
+    private int recent () {
+
+        return (int)Math.min(_moves, _steps.length);
+
+    } // recent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The last identifier given to a registered MBean.
+     **/
+    private final static AtomicInteger _ids = new AtomicInteger();
+
+    /**
+     * The step latency of each recent move, in nanoseconds, in a ring
+     * indexed by the move number.
+     **/
+    private final long[] _steps;
+
+    /**
+     * The number of cells evolved by each recent move, in the same ring.
+     **/
+    private final long[] _cells;
+
+    /**
+     * The number of moves measured.
+     **/
+    private long _moves;
+
+    /**
+     * The number of generations evolved by those moves.
+     **/
+    private long _generations;
+
+    /**
+     * The total time spent calculating generations, in nanoseconds.
+     **/
+    private long _evolveTime;
+
+    /**
+     * The total time spent adopting generations, in nanoseconds.
+     **/
+    private long _commitTime;
+
+    /**
+     * The total time spent showing generations, in nanoseconds.
+     **/
+    private long _displayTime;
+
+    /**
+     * The name under which these statistics are registered, or
+     * <code>null</code> if they are not.
+     **/
+    private ObjectName _name;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GenerationStats
+// =============================================================================
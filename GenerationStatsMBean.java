@@ -0,0 +1,78 @@
+// =============================================================================
+/**
+ * The <code>GenerationStatsMBean</code> interface.  The management view of a
+ * <code>GenerationStats</code>, through which a tool such as
+ * <code>jconsole</code> can read a running game's step latencies and
+ * throughput, or dump its summary.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface GenerationStatsMBean {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of moves measured.
+     *
+     * @return The number of moves since the game started playing.
+     **/
+    public long getMoves ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the median time to evolve and commit a move, over the recent
+     * moves.
+     *
+     * @return The median step latency, in microseconds.
+     **/
+    public double getStepP50Micros ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the 99th percentile of the time to evolve and commit a move,
+     * over the recent moves.
+     *
+     * @return The 99th-percentile step latency, in microseconds.
+     **/
+    public double getStepP99Micros ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rate at which cells are evolved, over the recent moves.
+     *
+     * @return The number of cells examined per second of evolving and
+     *         committing, or zero for an unbounded universe.
+     **/
+    public double getCellsPerSecond ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Describe the statistics in a few lines, and print them.
+     *
+     * @return The printed summary.
+     **/
+    public String dump ();
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface GenerationStatsMBean
+// =============================================================================
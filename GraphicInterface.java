@@ -3,6 +3,22 @@
  * A graphically-based user-interface for the <i>Game of Life</i>.  A
  * <code>GraphicInterface</code> controls the progression from one generation to
  * the next, displaying the state at each generation.
+ *
+ * The window shows the board through a <code>Viewport</code>:  dragging
+ * with the mouse pans it, and the mouse wheel zooms in and out around the
+ * pointer.  Only the cells inside the viewport are read and drawn.  Zoomed
+ * far enough out, each pixel instead shows the density of a block of cells.
+ * The board is drawn by a <code>BoardRenderer</code>, which redraws only what
+ * changed and is then copied to the screen in one call.
+ *
+ * The game evolves on the thread that calls <code>Game.play()</code>, never
+ * on the Swing event thread.  At most once per frame, that thread publishes
+ * an immutable <code>Snapshot</code> of the board; a Swing timer samples the
+ * latest one at a fixed frame rate and draws it.  Neither thread waits for
+ * the other, and each frame shows a single whole generation.  The option
+ * <code>graphic.rate=</code><i>n</i> paces the game at <i>n</i> generations
+ * per second, or as fast as it can go if <i>n</i> is 0, and
+ * <code>graphic.fps=</code><i>n</i> sets the frame rate.
  **/
 // =============================================================================
 
@@ -13,12 +29,17 @@
 
 import javax.swing.JPanel;
 import javax.swing.JFrame;
-import java.awt.Color;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import java.awt.Graphics;
 import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.event.MouseListener;
-import java.awt.Font;
+import java.awt.event.MouseWheelEvent;
+import java.util.concurrent.locks.LockSupport;
 // =============================================================================
 
 
@@ -38,16 +59,65 @@ public class GraphicInterface extends JPanel implements UserInterface {
      */
     public GraphicInterface (Game game) {
 
+	this(game, new Options());
+
+    } // GraphicInterface ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Hold onto the <code>Game</code>, read the
+     * pace of the game and of the frames, and open the window.
+     *
+     * @param game The <code>Game</code> whose state to draw.
+     * @param options The settings for the display.
+     */
+    public GraphicInterface (Game game, Options options) {
+
 	_game   = game;
-	_width  = game.getRows()    * _boxSize;
-	_height = game.getColumns() * _boxSize;
-	
-	setPreferredSize(new Dimension(_width, _height));
-	JFrame frame = new JFrame("Life");
-	frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setContentPane(this);
-        frame.pack();
-        frame.setVisible(true);
+
+	// Start with the whole board in view, in a window no larger than
+	// needed.
+	int zoom  = Viewport.fit(game.getRows(), game.getColumns(),
+				 _maxWindowSize, _initialZoom);
+	int box   = 1 << Math.max(zoom, 0);
+	int block = 1 << Math.max(-zoom, 0);
+	long width  = ((long)game.getColumns() * box + block - 1) / block;
+	long height = ((long)game.getRows()    * box + block - 1) / block;
+	_width    = (int)Math.min(_maxWindowSize, width);
+	_height   = (int)Math.min(_maxWindowSize, height);
+	_viewport = new Viewport(0, 0, zoom, _width, _height)
+	    .clampTo(game.getRows(), game.getColumns());
+	_renderer = new BoardRenderer(_width, _height);
+
+	// By default, keep the old pace of two generations per second.
+	int rate = options.getInt("graphic.rate", 2);
+	int fps  = options.getInt("graphic.fps", 30);
+	if ((rate < 0) || (fps <= 0)) {
+	    Support.abort("ERROR: graphic.rate must not be negative, and " +
+			  "graphic.fps must be positive: " + rate + ", " + fps);
+	}
+	_nanosPerMove  = (rate == 0) ? 0 : 1000000000L / rate;
+	_nanosPerFrame = 1000000000L / fps;
+	_nextMove      = System.nanoTime();
+	_nextPublish   = _nextMove;
+
+	SwingUtilities.invokeLater(() -> {
+		setPreferredSize(new Dimension(_width, _height));
+		_frame = new JFrame("Life");
+		_frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		_frame.setContentPane(this);
+		_frame.pack();
+		_frame.setVisible(true);
+		listenForViewChanges();
+
+		// Sample the latest snapshot once per frame.
+		Timer timer = new Timer(Math.max(1, 1000 / fps),
+					event -> drawLatest());
+		timer.start();
+	    });
 
     } // GraphicInterface ()
     // =========================================================================
@@ -55,46 +125,120 @@ public class GraphicInterface extends JPanel implements UserInterface {
 
 
     // =========================================================================
-    public void display (Graphics g) {
+    /**
+     * Pan the view when the board is dragged, zoom it when the mouse wheel
+     * turns, and resize it along with the window.
+     */
+    private void listenForViewChanges () {
+
+	MouseAdapter mouse = new MouseAdapter() {
+
+		public void mousePressed (MouseEvent event) {
+		    _dragStart = event.getPoint();
+		    _dragView  = _viewport;
+		}
+
+		public void mouseDragged (MouseEvent event) {
+		    if (_dragView != null) {
+			int dx = event.getX() - _dragStart.x;
+			int dy = event.getY() - _dragStart.y;
+			setViewport(_dragView.moveBy(dx, dy));
+		    }
+		}
+
+		public void mouseReleased (MouseEvent event) {
+		    _dragView = null;
+		}
+
+		public void mouseWheelMoved (MouseWheelEvent event) {
+		    setViewport(_viewport.zoomAt(-event.getWheelRotation(),
+						 event.getX(),
+						 event.getY()));
+		}
+
+	    };
+	addMouseListener(mouse);
+	addMouseMotionListener(mouse);
+	addMouseWheelListener(mouse);
+
+	addComponentListener(new ComponentAdapter() {
+		public void componentResized (ComponentEvent event) {
+		    if ((getWidth() > 0) && (getHeight() > 0)) {
+			setViewport(_viewport.resize(getWidth(), getHeight()));
+		    }
+		}
+	    });
+
+    } // listenForViewChanges ()
+    // =========================================================================
 
-	// Draw the background
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, _width, _height);
-
-        // Iterate over all cells
-        for (int row = 0; row < _game.getRows(); row += 1) {
-            for (int column = 0; column < _game.getColumns(); column += 1) {
-
-		// The coordinates of this cell.
-		int initx = column * _boxSize;
-		int inity = row    * _boxSize;
-
-		// Fill a cell with color depending on its state
-		Cell  cell = _game.getCell(row, column);
-		if (row < (int)(0.25*_game.getRows())) {
-            Color color = (cell.isAlive() ? Color.GREEN : Color.BLACK);
-            g.setColor(color);
-        }
-		else if (row >= (int)(0.25*_game.getRows()) && row < (int)(0.5*_game.getRows())) {
-            Color color = (cell.isAlive() ? Color.CYAN : Color.BLACK);
-            g.setColor(color);
-        }
-		else if (row >= (int)(0.5*_game.getRows()) && row < (int)(0.75*_game.getRows())) {
-            Color color = (cell.isAlive() ? Color.BLUE : Color.BLACK);
-            g.setColor(color);
-        }
-		else if (row >= (int)(0.75*_game.getRows())) {
-            Color color = (cell.isAlive() ? Color.MAGENTA : Color.BLACK);
-            g.setColor(color);
-        }
-		g.fillRect(initx, inity, _boxSize, _boxSize);
-
-		// Draw a boundary to around the cell.
-		g.setColor(Color.LIGHT_GRAY);
-		g.drawRect(initx, inity, _boxSize, _boxSize);
 
-	    }
-        }
+
+    // =========================================================================
+    /**
+     * Change the view, on the Swing event thread.  While the game is running,
+     * its thread takes the next snapshot through the new view; once the game
+     * is over, nothing else reads the game, so the snapshot is taken here.
+     *
+     * @param view The new view, before it is kept on the board.
+     */
+    private void setViewport (Viewport view) {
+
+	view = view.clampTo(_game.getRows(), _game.getColumns());
+	if (view.equals(_viewport)) {
+	    return;
+	}
+
+	_viewport = view;
+	if (_finished) {
+	    _latest = new Snapshot(_game, view);
+	    drawLatest();
+	}
+
+    } // setViewport ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Draw the latest snapshot into the image, if it is newer than the one
+     * drawn last.  This runs on the Swing event thread, which is the only
+     * thread that touches the image.
+     */
+    private void drawLatest () {
+
+	Snapshot snapshot = _latest;
+	if ((snapshot == null) || (snapshot == _drawn)) {
+	    return;
+	}
+
+	Viewport view = snapshot.getViewport();
+	if ((view.getWidth()  != _renderer.getWidth()) ||
+	    (view.getHeight() != _renderer.getHeight())) {
+	    _renderer = new BoardRenderer(view.getWidth(), view.getHeight());
+	}
+
+	_renderer.update(snapshot);
+	_drawn = snapshot;
+	_frame.setTitle("Life:  Generation = " + snapshot.getGeneration() +
+			", Population = " + snapshot.getPopulation());
+	repaint();
+
+    } // drawLatest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Draw the image of the board as it was last brought up to date.
+     *
+     * @param g The graphics context in which to draw.
+     */
+    public void display (Graphics g) {
+
+	g.drawImage(_renderer.getImage(), 0, 0, null);
 	
     } // display ()
     // =========================================================================
@@ -104,20 +248,43 @@ public class GraphicInterface extends JPanel implements UserInterface {
     // =========================================================================
     /**
      * Display the state of the <code>Cell</code>s in the <code>Grid</code>.
+     * A snapshot is published only if a frame has passed since the last one,
+     * since no more can be shown, or if the view has changed.
      */
     public void display () {
 
-	// Provide generation and population counts.
-	System.out.println("Generation = " + _game.getGeneration() +
-			   ", Population = " + _game.getPopulation());
-
-	repaint();
+	if ((System.nanoTime() - _nextPublish >= 0) ||
+	    (_viewport != _publishedView)) {
+	    publish();
+	}
 
     } // display ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Take a snapshot of the game through the current view, for the Swing
+     * event thread to draw.  If snapshots are slow to take, as of a large
+     * board, they are taken less often, so that they never take more than a
+     * fifth of the game's time.
+     */
+    private void publish () {
+
+	long     start = System.nanoTime();
+	Viewport view  = _viewport;
+	_latest        = new Snapshot(_game, view);
+	_publishedView = view;
+
+	long end = System.nanoTime();
+	_nextPublish   = end + Math.max(_nanosPerFrame, 4 * (end - start));
+
+    } // publish ()
+    // =========================================================================
+
+
+
     // =========================================================================
     public void paintComponent (Graphics g) {
 	
@@ -136,16 +303,42 @@ public class GraphicInterface extends JPanel implements UserInterface {
      */
     public void triggerMove () {
 
-	// Pause for a fixed interval.
-	try {
-	    Thread.sleep(_wait);
-	} catch(InterruptedException e) {}
+	// Wait until the next move is due, if the game is paced, showing any
+	// change to the view in the meantime.  Falling behind does not lead to
+	// a burst of moves to catch up.
+	if (_nanosPerMove > 0) {
+	    long wait = _nextMove - System.nanoTime();
+	    while (wait > 0) {
+		LockSupport.parkNanos(Math.min(wait, _nanosPerFrame));
+		if (_viewport != _publishedView) {
+		    publish();
+		}
+		wait = _nextMove - System.nanoTime();
+	    }
+	    _nextMove = Math.max(_nextMove, System.nanoTime() - _nanosPerMove) +
+			_nanosPerMove;
+	}
 	
     } // triggerMove ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Publish the final state, however soon after the last one it comes, and
+     * leave later snapshots to the Swing event thread.
+     */
+    public void finish () {
+
+	publish();
+	_finished = true;
+
+    } // finish ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // DATA MEMBERS
 
@@ -155,14 +348,53 @@ public class GraphicInterface extends JPanel implements UserInterface {
     /** The default window height. */
     private int _height;
 
-    /** The size of the boxes for each cell. */
-    private final static int _boxSize = 20;
+    /** The zoom at first, on a board small enough:  16 pixels per cell. */
+    private final static int _initialZoom = 4;
+
+    /** The largest window width or height at first. */
+    private final static int _maxWindowSize = 1000;
 
-    /** The delay between generations, in ms. */
-    private final static int _wait   = 500;
-    
     /** The <code>Game</code> that this interface is controlling. */
     private Game _game;
+
+    /** The image of the board, kept from one frame to the next. */
+    private BoardRenderer _renderer;
+
+    /** The window, once the Swing event thread has opened it. */
+    private JFrame _frame;
+
+    /** The interval between generations, in ns, or 0 to run flat out. */
+    private final long _nanosPerMove;
+
+    /** The interval between frames, in ns. */
+    private final long _nanosPerFrame;
+
+    /** The time at which the next move is due. */
+    private long _nextMove;
+
+    /** The time after which the next snapshot may be published. */
+    private long _nextPublish;
+
+    /** The latest snapshot published by the game's thread. */
+    private volatile Snapshot _latest;
+
+    /** The snapshot drawn last, read only by the Swing event thread. */
+    private Snapshot _drawn;
+
+    /** The part of the board to show, changed by the Swing event thread. */
+    private volatile Viewport _viewport;
+
+    /** The view of the latest snapshot, read only by the game's thread. */
+    private Viewport _publishedView;
+
+    /** Whether the game is over, so that it may be read by any thread. */
+    private volatile boolean _finished;
+
+    /** The point at which the current drag began. */
+    private Point _dragStart;
+
+    /** The view when the current drag began, or <code>null</code>. */
+    private Viewport _dragView;
     // =========================================================================
 
 
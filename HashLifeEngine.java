@@ -0,0 +1,934 @@
+// =============================================================================
+/**
+ * The <code>HashLifeEngine</code> class.  Evolve a universe held as a
+ * quadtree in which identical subtrees are shared, memoizing the future of
+ * each subtree so that repeated structure in space and in time is computed
+ * only once.  This lets the engine jump ahead by 2<sup><i>k</i></sup>
+ * generations in a single step.
+ *
+ * Unlike the other engines, the universe here is unbounded:  cells that
+ * leave the rows and columns of the initial state keep evolving, and only
+ * the initial rectangle is visible through <code>isAlive()</code>.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+// =============================================================================
+
+
+
+// =============================================================================
+public class HashLifeEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells with a
+     * visible rectangle of the given size.
+     *
+     * @param rows The number of visible rows.
+     * @param columns The number of visible columns.
+     **/
+    public HashLifeEngine (int rows, int columns) {
+
+        this(rows, columns, Rule.CONWAY);
+
+    } // HashLifeEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead cells
+     * with a visible rectangle of the given size, evolved by the given rule.
+     * The rule may not bring cells to life with no live neighbors, which
+     * would fill the unbounded universe at once.
+     *
+     * @param rows The number of visible rows.
+     * @param columns The number of visible columns.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public HashLifeEngine (int rows, int columns, Rule rule) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+        if (rule.bornAlone()) {
+            Support.abort("ERROR: The HashLife engine cannot run a rule " +
+                          "with B0: " + rule);
+        }
+
+        _rule     = rule;
+        _rows     = rows;
+        _columns  = columns;
+        _table    = new HashMap<Node, Node>();
+        _empty    = new Node[_maxLevel + 1];
+        _empty[0] = DEAD;
+
+        // A single jump cannot let go of its nodes until it is done, so
+        // stop it before it fills the heap.
+        _nodeLimit   = Runtime.getRuntime().maxMemory() / _bytesPerNode;
+        _collectSize = Math.min(_maxNodes, _nodeLimit / 2);
+
+        // Start with the smallest tree that covers the visible rectangle.
+        int level = 3;
+        while (size(level) < Math.max(rows, columns)) {
+            level += 1;
+        }
+        _root      = empty(level);
+        _topRow    = 0;
+        _topColumn = 0;
+
+    } // HashLifeEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isBounded () {
+
+        return false;
+
+    } // isBounded ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        long r = row    - _topRow;
+        long c = column - _topColumn;
+        long size = size(_root._level);
+        if ((r < 0) || (r >= size) || (c < 0) || (c >= size)) {
+            return false;
+        }
+
+        // Descend toward the cell, stopping early in empty space.
+        Node node = _root;
+        while ((node._level > 0) && (node._population > 0)) {
+            long half = size(node._level - 1);
+            boolean south = (r >= half);
+            boolean east  = (c >= half);
+            if (south) {
+                r -= half;
+            }
+            if (east) {
+                c -= half;
+            }
+            node = south ? (east ? node._se : node._sw)
+                         : (east ? node._ne : node._nw);
+        }
+
+        return node == ALIVE;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        // Grow the tree until it covers the cell.
+        while ((row    <  _topRow)                         ||
+               (row    >= _topRow    + size(_root._level)) ||
+               (column <  _topColumn)                      ||
+               (column >= _topColumn + size(_root._level))) {
+            expand();
+        }
+
+        _root = setAlive(_root, row - _topRow, column - _topColumn);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation.
+     **/
+    public void evolve () {
+
+        jump(0);
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance to the generation calculated by <code>evolve()</code>.
+     **/
+    public void advance () {
+
+        _root       = _nextRoot;
+        _topRow     = _nextTopRow;
+        _topColumn  = _nextTopColumn;
+        _lastBirths = _nextBirths;
+        _lastDeaths = _nextDeaths;
+
+        // Let go of the memoized results if the table has grown too large.
+        if (_table.size() > _collectSize) {
+            collect();
+        }
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance by the given number of generations, taking one jump of
+     * 2<sup><i>k</i></sup> generations for each bit <i>k</i> that is set in
+     * that number.
+     *
+     * @param generations The number of generations to advance.
+     **/
+    public void advanceBy (long generations) {
+
+        if ((generations < 0) || (generations > (1L << _maxStep))) {
+            Support.abort("ERROR: HashLife can advance at most 2^" + _maxStep +
+                          " generations at once: " + generations);
+        }
+
+        for (int step = 0; generations != 0; step += 1) {
+            if ((generations & 1) != 0) {
+                jump(step);
+                advance();
+            }
+            generations >>>= 1;
+        }
+
+    } // advanceBy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _root._population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle from the populations of the
+     * largest nodes that lie wholly within it.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        return population(_root, _topRow, _topColumn,
+                          top, left, (long)top + rows, (long)left + columns);
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells of a node that lie in a rectangle.
+     *
+     * @param node The node.
+     * @param row The row of the node's north-west corner.
+     * @param column The column of the node's north-west corner.
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param bottom The row just below the rectangle.
+     * @param right The column just right of the rectangle.
+     * @return The number of live cells in both the node and the rectangle.
+     **/
+    private static long population (Node node, long row, long column,
+                                    long top, long left,
+                                    long bottom, long right) {
+
+        long size = size(node._level);
+        if ((node._population == 0) ||
+            (row    >= bottom) || (row    + size <= top) ||
+            (column >= right)  || (column + size <= left)) {
+            return 0;
+        }
+        if ((row    >= top)  && (row    + size <= bottom) &&
+            (column >= left) && (column + size <= right)) {
+            return node._population;
+        }
+
+        long half = size(node._level - 1);
+        return (population(node._nw, row,        column,
+                           top, left, bottom, right) +
+                population(node._ne, row,        column + half,
+                           top, left, bottom, right) +
+                population(node._sw, row + half, column,
+                           top, left, bottom, right) +
+                population(node._se, row + half, column + half,
+                           top, left, bottom, right));
+
+    } // population ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the universe 2<sup><i>step</i></sup> generations ahead,
+     * leaving it to be adopted by <code>advance()</code>.
+     *
+     * @param step The base-2 logarithm of the number of generations.
+     **/
+    private void jump (int step) {
+
+        // The result of a node is its center, so pad the tree until the live
+        // cells sit inside the center of the center, where they cannot grow
+        // out of the result in the time allowed.
+        while ((_root._level < step + 3) ||
+               (centered(centered(_root))._population !=
+                _root._population)) {
+            expand();
+        }
+
+        long quarter   = size(_root._level - 2);
+        _nextRoot      = result(_root, step);
+        _nextTopRow    = _topRow    + quarter;
+        _nextTopColumn = _topColumn + quarter;
+
+        // The result covers the same cells as the center of the tree, which
+        // holds the whole population, so the two can be compared directly.
+        _nextBirths = births(centered(_root), _nextRoot);
+        _nextDeaths = _root._population + _nextBirths -
+                      _nextRoot._population;
+
+    } // jump ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the cells alive in one node that are dead in another covering
+     * the same cells.  Shared subtrees are identical and so are skipped,
+     * which keeps the count proportional to the area that changed.
+     *
+     * @param before The earlier node.
+     * @param after The later node, of the same level.
+     * @return The number of cells alive only in the later node.
+     **/
+    private static long births (Node before, Node after) {
+
+        if ((before == after) || (after._population == 0)) {
+            return 0;
+        }
+        if (before._population == 0) {
+            return after._population;
+        }
+
+        return births(before._nw, after._nw) +
+               births(before._ne, after._ne) +
+               births(before._sw, after._sw) +
+               births(before._se, after._se);
+
+    } // births ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Double the size of the tree, keeping the current tree at its center.
+     **/
+    private void expand () {
+
+        if (_root._level >= _maxLevel) {
+            Support.abort("ERROR: The universe has grown too large for " +
+                          "HashLife");
+        }
+
+        Node border = empty(_root._level - 1);
+        _root = join(join(border, border, border, _root._nw),
+                     join(border, border, _root._ne, border),
+                     join(border, _root._sw, border, border),
+                     join(_root._se, border, border, border));
+
+        long quarter = size(_root._level - 2);
+        _topRow    -= quarter;
+        _topColumn -= quarter;
+
+    } // expand ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Discard every memoized result and every node that the current tree
+     * no longer uses.
+     **/
+    private void collect () {
+
+        _table.clear();
+        for (int level = 1; level < _empty.length; level += 1) {
+            _empty[level] = null;
+        }
+        _root = intern(_root, new IdentityHashMap<Node, Node>());
+
+    } // collect ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Re-enter a node and its descendants into the table, dropping their
+     * memoized results.
+     *
+     * @param node The node to keep.
+     * @param done The new copy of each node already re-entered, so that
+     *             shared subtrees are visited only once.
+     * @return The canonical copy of the node.
+     **/
+    private Node intern (Node node, Map<Node, Node> done) {
+
+        if (node._level == 0) {
+            return node;
+        }
+
+        Node copy = done.get(node);
+        if (copy == null) {
+            copy = join(intern(node._nw, done), intern(node._ne, done),
+                        intern(node._sw, done), intern(node._se, done));
+            done.put(node, copy);
+        }
+
+        return copy;
+
+    } // intern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the canonical node with the given quadrants.
+     **/
+    private Node join (Node nw, Node ne, Node sw, Node se) {
+
+        Node node = new Node(nw, ne, sw, se);
+        Node canonical = _table.get(node);
+        if (canonical == null) {
+            if (_table.size() >= _nodeLimit) {
+                Support.abort("ERROR: HashLife needs more than " + _nodeLimit +
+                              " nodes for one jump; use a smaller jump or " +
+                              "a larger heap");
+            }
+            _table.put(node, node);
+            canonical = node;
+        }
+
+        return canonical;
+
+    } // join ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the canonical empty node of the given level.
+     **/
+    private Node empty (int level) {
+
+        if (_empty[level] == null) {
+            Node child = empty(level - 1);
+            _empty[level] = join(child, child, child, child);
+        }
+
+        return _empty[level];
+
+    } // empty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set one cell of a node to be alive.
+     *
+     * @param node The node that holds the cell.
+     * @param row The row of the cell within the node.
+     * @param column The column of the cell within the node.
+     * @return The canonical node with that cell alive.
+     **/
+    private Node setAlive (Node node, long row, long column) {
+
+        if (node._level == 0) {
+            return ALIVE;
+        }
+
+        long half = size(node._level - 1);
+        if (row < half) {
+            if (column < half) {
+                return join(setAlive(node._nw, row, column),
+                            node._ne, node._sw, node._se);
+            } else {
+                return join(node._nw, setAlive(node._ne, row, column - half),
+                            node._sw, node._se);
+            }
+        } else {
+            if (column < half) {
+                return join(node._nw, node._ne,
+                            setAlive(node._sw, row - half, column),
+                            node._se);
+            } else {
+                return join(node._nw, node._ne, node._sw,
+                            setAlive(node._se, row - half, column - half));
+            }
+        }
+
+    } // setAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the center of a node, one level smaller.
+     **/
+    private Node centered (Node node) {
+
+        return join(node._nw._se, node._ne._sw, node._sw._ne, node._se._nw);
+
+    } // centered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the node straddling the boundary between two side-by-side
+     * nodes.
+     **/
+    private Node centeredHorizontal (Node west, Node east) {
+
+        return join(west._ne, east._nw, west._se, east._sw);
+
+    } // centeredHorizontal ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the node straddling the boundary between two stacked nodes.
+     **/
+    private Node centeredVertical (Node north, Node south) {
+
+        return join(north._sw, north._se, south._nw, south._ne);
+
+    } // centeredVertical ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the center of a node 2<sup><i>step</i></sup> generations in
+     * the future.  The center is one level smaller than the node, and is
+     * fully determined by the node because no signal can travel farther
+     * than a quarter of the node in that time.
+     *
+     * @param node A node of level 2 or more.
+     * @param step The base-2 logarithm of the number of generations, at most
+     *             the level of the node minus 2.
+     * @return The future center of the node.
+     **/
+    private Node result (Node node, int step) {
+
+        if (node._population == 0) {
+            return empty(node._level - 1);
+        }
+
+        if ((node._results != null) && (node._results[step] != null)) {
+            return node._results[step];
+        }
+
+        Node result;
+        if (node._level == 2) {
+
+            result = evolveBase(node);
+
+        } else {
+
+            // Cut the node into nine overlapping subnodes.
+            Node n00 = node._nw;
+            Node n01 = centeredHorizontal(node._nw, node._ne);
+            Node n02 = node._ne;
+            Node n10 = centeredVertical(node._nw, node._sw);
+            Node n11 = centered(node);
+            Node n12 = centeredVertical(node._ne, node._se);
+            Node n20 = node._sw;
+            Node n21 = centeredHorizontal(node._sw, node._se);
+            Node n22 = node._se;
+
+            // At full speed, both halves of the time are spent here, one in
+            // each stage.  Otherwise the first stage only crops the
+            // subnodes, and the second stage spends all of the time.
+            boolean full = (step == node._level - 2);
+            Node r00 = full ? result(n00, step - 1) : centered(n00);
+            Node r01 = full ? result(n01, step - 1) : centered(n01);
+            Node r02 = full ? result(n02, step - 1) : centered(n02);
+            Node r10 = full ? result(n10, step - 1) : centered(n10);
+            Node r11 = full ? result(n11, step - 1) : centered(n11);
+            Node r12 = full ? result(n12, step - 1) : centered(n12);
+            Node r20 = full ? result(n20, step - 1) : centered(n20);
+            Node r21 = full ? result(n21, step - 1) : centered(n21);
+            Node r22 = full ? result(n22, step - 1) : centered(n22);
+
+            int second = full ? step - 1 : step;
+            result = join(result(join(r00, r01, r10, r11), second),
+                          result(join(r01, r02, r11, r12), second),
+                          result(join(r10, r11, r20, r21), second),
+                          result(join(r11, r12, r21, r22), second));
+
+        }
+
+        if (node._results == null) {
+            node._results = new Node[node._level - 1];
+        }
+        node._results[step] = result;
+
+        return result;
+
+    } // result ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply the rule to the center of a 4x4 node.
+     *
+     * @param node A node of level 2.
+     * @return The 2x2 center of the node one generation later.
+     **/
+    private Node evolveBase (Node node) {
+
+        // Gather the 16 cells into a bit mask, row by row.
+        int bits = 0;
+        for (int row = 0; row < 4; row += 1) {
+            for (int column = 0; column < 4; column += 1) {
+                Node quadrant = (row < 2) ?
+                                ((column < 2) ? node._nw : node._ne) :
+                                ((column < 2) ? node._sw : node._se);
+                Node leaf = (row % 2 == 0) ?
+                            ((column % 2 == 0) ? quadrant._nw : quadrant._ne) :
+                            ((column % 2 == 0) ? quadrant._sw : quadrant._se);
+                if (leaf == ALIVE) {
+                    bits |= 1 << (row * 4 + column);
+                }
+            }
+        }
+
+        return join(evolveCell(bits, 1, 1), evolveCell(bits, 1, 2),
+                    evolveCell(bits, 2, 1), evolveCell(bits, 2, 2));
+
+    } // evolveBase ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply the rule to one inner cell of a 4x4 bit mask.
+     **/
+    private Node evolveCell (int bits, int row, int column) {
+
+        int count = 0;
+        for (int r = row - 1; r <= row + 1; r += 1) {
+            for (int c = column - 1; c <= column + 1; c += 1) {
+                if ((r != row) || (c != column)) {
+                    count += (bits >>> (r * 4 + c)) & 1;
+                }
+            }
+        }
+
+        int alive = (bits >>> (row * 4 + column)) & 1;
+        return (_rule.next(alive, count) == 1) ? ALIVE : DEAD;
+
+    } // evolveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the width of a node of the given level.
+     **/
+    private static long size (int level) {
+
+        return 1L << level;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A square block of cells, 2<sup><i>level</i></sup> on a side.  Nodes are
+     * immutable and canonical, so two nodes are equal exactly when their
+     * quadrants are the same objects.
+     **/
+    private static class Node {
+
+        Node (Node nw, Node ne, Node sw, Node se) {
+
+            _nw         = nw;
+            _ne         = ne;
+            _sw         = sw;
+            _se         = se;
+            _level      = nw._level + 1;
+            _population = nw._population + ne._population +
+                          sw._population + se._population;
+            _hash       = ((System.identityHashCode(nw) * 31 +
+                            System.identityHashCode(ne)) * 31 +
+                           System.identityHashCode(sw)) * 31 +
+                          System.identityHashCode(se);
+
+        } // Node ()
+
+        Node (boolean alive) {
+
+            _nw         = null;
+            _ne         = null;
+            _sw         = null;
+            _se         = null;
+            _level      = 0;
+            _population = alive ? 1 : 0;
+            _hash       = alive ? 1 : 0;
+
+        } // Node ()
+
+        public int hashCode () {
+
+            return _hash;
+
+        } // hashCode ()
+
+        public boolean equals (Object other) {
+
+            if (!(other instanceof Node)) {
+                return false;
+            }
+
+            Node node = (Node)other;
+            return (_nw == node._nw) && (_ne == node._ne) &&
+                   (_sw == node._sw) && (_se == node._se);
+
+        } // equals ()
+
+        final Node   _nw;
+        final Node   _ne;
+        final Node   _sw;
+        final Node   _se;
+        final int    _level;
+        final long   _population;
+        final int    _hash;
+
+        /**
+         * The memoized future center, indexed by the base-2 logarithm of the
+         * number of generations.
+         **/
+        Node[]       _results;
+
+    } // class Node
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The single live cell.
+     **/
+    private final static Node ALIVE = new Node(true);
+
+    /**
+     * The single dead cell.
+     **/
+    private final static Node DEAD = new Node(false);
+
+    /**
+     * The largest jump, as a base-2 logarithm of generations.
+     **/
+    private final static int _maxStep = 58;
+
+    /**
+     * The deepest tree, whose width still fits in a <code>long</code>.
+     **/
+    private final static int _maxLevel = 62;
+
+    /**
+     * The number of nodes past which the memoized results are discarded.
+     **/
+    private final static int _maxNodes = 4 * 1024 * 1024;
+
+    /**
+     * The heap to allow for each node, with its entry in the table and its
+     * memoized results.
+     **/
+    private final static long _bytesPerNode = 200;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The number of visible rows.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of visible columns.
+     **/
+    private final int _columns;
+
+    /**
+     * The canonical copy of every node in use.
+     **/
+    private final Map<Node, Node> _table;
+
+    /**
+     * The canonical empty node of each level.
+     **/
+    private final Node[] _empty;
+
+    /**
+     * The number of nodes that fit in the heap, past which a jump fails.
+     **/
+    private final long _nodeLimit;
+
+    /**
+     * The number of nodes past which the memoized results are discarded
+     * between jumps.
+     **/
+    private final long _collectSize;
+
+    /**
+     * The tree of the current generation.
+     **/
+    private Node _root;
+
+    /**
+     * The row coordinate of the north-west corner of the tree.
+     **/
+    private long _topRow;
+
+    /**
+     * The column coordinate of the north-west corner of the tree.
+     **/
+    private long _topColumn;
+
+    /**
+     * The tree calculated by <code>evolve()</code>.
+     **/
+    private Node _nextRoot;
+
+    /**
+     * The row coordinate of the north-west corner of the calculated tree.
+     **/
+    private long _nextTopRow;
+
+    /**
+     * The column coordinate of the north-west corner of the calculated tree.
+     **/
+    private long _nextTopColumn;
+
+    /**
+     * The number of cells born in the calculated tree.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the calculated tree.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last advance.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last advance.
+     **/
+    private long _lastDeaths;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HashLifeEngine
+// =============================================================================
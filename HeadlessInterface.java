@@ -0,0 +1,139 @@
+// =============================================================================
+/**
+ * A user-interface for the <i>Game of Life</i> that shows nothing while the
+ * game evolves, so that the game runs at full speed.  When the game ends, a
+ * <code>HeadlessInterface</code> reports the throughput of the run and the
+ * final population.
+ *
+ * The clock starts when the initial state is first displayed, so that the
+ * time spent reading the initial state is not counted.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class HeadlessInterface implements UserInterface {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Hold onto a pointer to the <code>Game</code> for which
+     * this <code>HeadlessInterface</code> is providing interaction.
+     *
+     * @param game The <code>Game</code> to measure.
+     **/
+    public HeadlessInterface (Game game) {
+
+        _game    = game;
+        _started = false;
+
+    } // HeadlessInterface ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Show nothing, but start the clock at the initial state.
+     **/
+    public void display () {
+
+        if (!_started) {
+            _startGeneration = _game.getGeneration();
+            _startEvolved    = _game.getGenerationsEvolved();
+            _startTime       = System.nanoTime();
+            _started         = true;
+        }
+
+    } // display ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep control of the program until it is time to advance the state of the
+     * <code>Game</code>.
+     **/
+    public void triggerMove () {
+
+        // Do nothing.  Just let it advance as quickly as it wants.
+
+    } // triggerMove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Report the rate at which generations and cells were evolved, and the
+     * final population.  The rates count only the generations actually
+     * evolved, not those skipped past a cycle.  An unbounded universe has no
+     * fixed number of cells, so only its generations are counted.
+     **/
+    public void finish () {
+
+        long   elapsed     = System.nanoTime() - _startTime;
+        double seconds     = Math.max(elapsed, 1) / 1e9;
+        long   generations = _game.getGeneration() - _startGeneration;
+        long   evolved     = _game.getGenerationsEvolved() - _startEvolved;
+
+        System.out.printf("Generations = %d, Seconds = %.3f%n",
+                          generations,
+                          seconds);
+        if (_game.isBounded()) {
+            double cells = (double)evolved *
+                           _game.getRows() *
+                           _game.getColumns();
+            System.out.printf("Generations/sec = %.1f, Cells/sec = %.4g%n",
+                              evolved / seconds,
+                              cells / seconds);
+        } else {
+            System.out.printf("Generations/sec = %.1f%n",
+                              evolved / seconds);
+        }
+        System.out.printf("Population = %d%n",
+                          _game.getPopulation());
+
+    } // finish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The <code>Game</code> that this interface is controlling.
+     **/
+    private final Game _game;
+
+    /**
+     * The generation at which the clock started.
+     **/
+    private long _startGeneration;
+
+    /**
+     * The number of generations evolved when the clock started.
+     **/
+    private long _startEvolved;
+
+    /**
+     * The time at which the clock started, in nanoseconds.
+     **/
+    private long _startTime;
+
+    /**
+     * Whether the clock has started.
+     **/
+    private boolean _started;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HeadlessInterface
+// =============================================================================
@@ -0,0 +1,596 @@
+// =============================================================================
+/**
+ * The <code>InitialStateReader</code> class.  Read an initial-state file:  a
+ * first line holding the numbers of rows and columns, and optionally the rule
+ * (such as <code>B36/S23</code>), followed by one line of row and column
+ * coordinates for each live cell.
+ *
+ * The file is memory-mapped and the coordinates are parsed straight from the
+ * mapped bytes, with no objects allocated per line.  The body is cut into
+ * chunks at line boundaries, and the chunks are parsed in parallel.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class InitialStateReader {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Open the file and read its first line.
+     *
+     * @param path The pathname of the initial-state file.
+     * @param bands The bands that share the parsing of the chunks.
+     * @throws IOException If the file cannot be read, or if its first line
+     *                     does not hold two positive dimensions and at most
+     *                     a well-formed rule.
+     **/
+    public InitialStateReader (String path, Bands bands) throws IOException {
+
+        _path  = path;
+        _bands = bands;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path),
+                                                    StandardOpenOption.READ)) {
+            _size = channel.size();
+            readHeader(channel);
+            cutChunks(channel);
+        } catch (NoSuchFileException e) {
+            throw new IOException("File not found: " + path);
+        }
+
+    } // InitialStateReader ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows given on the first line.
+     *
+     * @return The number of rows in the universe.
+     **/
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns given on the first line.
+     *
+     * @return The number of columns in the universe.
+     **/
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule given on the first line, if any.
+     *
+     * @return The rule, or <code>null</code> if the first line holds only the
+     *         dimensions.
+     **/
+    public Rule getRule () {
+
+        return _rule;
+
+    } // getRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse the coordinates of every live cell.
+     *
+     * @throws IOException If the file cannot be read, or if any line does not
+     *                     hold a pair of coordinates within the universe.  The
+     *                     message names the first such line.
+     **/
+    public void readCells () throws IOException {
+
+        int chunks = _starts.length - 1;
+        _cells  = new int[chunks][];
+        _counts = new int[chunks];
+        _lines  = new long[chunks];
+        _errors = new String[chunks];
+        _errorLines = new long[chunks];
+
+        try (FileChannel channel = FileChannel.open(Paths.get(_path),
+                                                    StandardOpenOption.READ)) {
+
+            // Map every chunk first, so that mapping errors are reported here
+            // rather than inside the bands.
+            MappedByteBuffer[] buffers = new MappedByteBuffer[chunks];
+            for (int chunk = 0; chunk < chunks; chunk += 1) {
+                buffers[chunk] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                             _starts[chunk],
+                                             _starts[chunk + 1] -
+                                             _starts[chunk]);
+            }
+
+            _bands.run(chunks, (first, last) -> {
+                    for (int chunk = first; chunk < last; chunk += 1) {
+                        parseChunk(chunk, buffers[chunk]);
+                    }
+                });
+
+        }
+
+        // Report the earliest error, counting the lines of the chunks before
+        // it to find its line number.  The body starts on line 2.
+        long line = 2;
+        for (int chunk = 0; chunk < chunks; chunk += 1) {
+            if (_errors[chunk] != null) {
+                throw new IOException(_errors[chunk] + " at line " +
+                                      (line + _errorLines[chunk]) +
+                                      " of " + _path);
+            }
+            line += _lines[chunk];
+        }
+
+    } // readCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of chunks that the coordinates were parsed in.
+     *
+     * @return The number of chunks.
+     **/
+    public int getChunks () {
+
+        return _counts.length;
+
+    } // getChunks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the coordinates parsed from one chunk.
+     *
+     * @param chunk The chunk, from 0 up to the number of chunks.
+     * @return The row and column of each live cell, one after the other.
+     *         Only the first <code>getCellCount(chunk)</code> pairs are
+     *         meaningful.
+     **/
+    public int[] getCells (int chunk) {
+
+        return _cells[chunk];
+
+    } // getCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells parsed from one chunk.
+     *
+     * @param chunk The chunk, from 0 up to the number of chunks.
+     * @return The number of coordinate pairs in the chunk.
+     **/
+    public int getCellCount (int chunk) {
+
+        return _counts[chunk];
+
+    } // getCellCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the first line, which contains the dimensions of the grid and
+     * perhaps the rule, and note where the body begins.
+     **/
+    private void readHeader (FileChannel channel) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate((int)Math.min(_size,
+                                                              _windowSize));
+        channel.read(header, 0);
+        header.flip();
+
+        int end = 0;
+        while ((end < header.limit()) && (header.get(end) != '\n')) {
+            end += 1;
+        }
+        _bodyStart = Math.min(end + 1, _size);
+
+        long[] fields = new long[2];
+        int    found  = 0;
+        int    i      = 0;
+        while (true) {
+            while ((i < end) && isSpace(header.get(i))) {
+                i += 1;
+            }
+            if (i == end) {
+                break;
+            }
+            int start = i;
+            while ((i < end) && !isSpace(header.get(i))) {
+                i += 1;
+            }
+            if (found < fields.length) {
+                fields[found] = parseNumber(header, start, i);
+            } else if (_rule == null) {
+                byte[] text = new byte[i - start];
+                header.get(start, text);
+                _rule = Rule.parse(new String(text,
+                                              StandardCharsets.US_ASCII));
+                if (_rule == null) {
+                    throw new IOException("Invalid rule at line 1 of " +
+                                          _path);
+                }
+                continue;
+            } else {
+                throw new IOException("Invalid dimensions at line 1 of " +
+                                      _path);
+            }
+            found += 1;
+        }
+
+        if ((found != 2) ||
+            (fields[0] <= 0) || (fields[0] > Integer.MAX_VALUE) ||
+            (fields[1] <= 0) || (fields[1] > Integer.MAX_VALUE)) {
+            throw new IOException("Invalid dimensions at line 1 of " + _path);
+        }
+
+        _rows    = (int)fields[0];
+        _columns = (int)fields[1];
+
+    } // readHeader ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Cut the body of the file into chunks that end at line boundaries, a
+     * few for each thread and none larger than a mapping may be.
+     **/
+    private void cutChunks (FileChannel channel) throws IOException {
+
+        long body   = _size - _bodyStart;
+        long wanted = Math.max(1, Math.min(body / _minChunkSize,
+                                           _bands.getThreads() * 4L));
+        long length = Math.max(body / wanted, 1);
+        if (length > _maxChunkSize) {
+            length = _maxChunkSize;
+            wanted = (body + length - 1) / length;
+        }
+
+        long[] starts = new long[(int)wanted + 1];
+        int    chunks = 0;
+        starts[0] = _bodyStart;
+        long position = _bodyStart;
+        while (position < _size) {
+            long target = Math.min(position + length, _size);
+            long end    = (target == _size) ? _size :
+                                              nextLine(channel, target);
+            if (end - position > _maxChunkSize) {
+                throw new IOException("Line too long near byte " + position +
+                                      " of " + _path);
+            }
+            chunks += 1;
+            if (chunks == starts.length) {
+                starts = Arrays.copyOf(starts, chunks * 2);
+            }
+            starts[chunks] = end;
+            position = end;
+        }
+
+        _starts = Arrays.copyOf(starts, chunks + 1);
+
+    } // cutChunks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the start of the first line at or after a position.
+     *
+     * @return The position just past the next newline, or the end of the
+     *         file.
+     **/
+    private long nextLine (FileChannel channel, long position)
+        throws IOException {
+
+        ByteBuffer window = ByteBuffer.allocate(_windowSize);
+        while (position < _size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; i += 1) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return _size;
+
+    } // nextLine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse the coordinate pairs of one chunk.  On a bad line, record the
+     * error and its line within the chunk, and stop.
+     **/
+    private void parseChunk (int chunk, ByteBuffer buffer) {
+
+        int    limit  = buffer.limit();
+        int[]  cells  = new int[Math.max(16, limit / 8)];
+        int    count  = 0;
+        long   lines  = 0;
+        int    i      = 0;
+        long   row    = 0;
+        boolean haveRow = false;
+
+        while (true) {
+
+            // Skip the whitespace before the next number, counting lines.
+            byte b = 0;
+            while (i < limit) {
+                b = buffer.get(i);
+                if (b == '\n') {
+                    if (haveRow) {
+                        fail(chunk, lines, "Could not read coordinates");
+                        return;
+                    }
+                    lines += 1;
+                } else if (!isSpace(b)) {
+                    break;
+                }
+                i += 1;
+            }
+            if (i == limit) {
+                break;
+            }
+
+            // Find the end of the number and parse it.
+            int start = i;
+            while ((i < limit) && !isSpace(buffer.get(i))) {
+                i += 1;
+            }
+            long value = parseNumber(buffer, start, i);
+            if (value == _invalid) {
+                fail(chunk, lines, "Could not read coordinates");
+                return;
+            }
+
+            if (!haveRow) {
+                row     = value;
+                haveRow = true;
+                continue;
+            }
+            haveRow = false;
+
+            // A pair is complete.
+            if ((row < 0) || (row >= _rows) || (value < 0) ||
+                (value >= _columns)) {
+                fail(chunk, lines, "Coordinates out of range");
+                return;
+            }
+            if (count + 2 > cells.length) {
+                cells = Arrays.copyOf(cells, cells.length * 2);
+            }
+            cells[count]     = (int)row;
+            cells[count + 1] = (int)value;
+            count += 2;
+
+        }
+
+        if (haveRow) {
+            fail(chunk, lines, "Could not read coordinates");
+            return;
+        }
+
+        _cells[chunk]  = cells;
+        _counts[chunk] = count / 2;
+        _lines[chunk]  = lines;
+
+    } // parseChunk ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the error found in a chunk.
+     **/
+    private void fail (int chunk, long line, String message) {
+
+        _errors[chunk]     = message;
+        _errorLines[chunk] = line;
+        _cells[chunk]      = new int[0];
+        _counts[chunk]     = 0;
+
+    } // fail ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a decimal integer from a range of bytes.
+     *
+     * @return The value, or <code>_invalid</code> if the bytes are not an
+     *         integer that fits in an <code>int</code>.
+     **/
+    private static long parseNumber (ByteBuffer buffer, int start, int end) {
+
+        boolean negative = (start < end) && (buffer.get(start) == '-');
+        if (negative) {
+            start += 1;
+        }
+        if (start == end) {
+            return _invalid;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i += 1) {
+            int digit = buffer.get(i) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                return _invalid;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                return _invalid;
+            }
+        }
+
+        return negative ? -value : value;
+
+    } // parseNumber ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a byte is whitespace, including a newline.
+     **/
+    private static boolean isSpace (byte b) {
+
+        return (b == ' ') || (b == '\t') || (b == '\r') || (b == '\n');
+
+    } // isSpace ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The value returned for a malformed number.
+     **/
+    private final static long _invalid = Long.MIN_VALUE;
+
+    /**
+     * The smallest chunk worth parsing on its own thread.
+     **/
+    private final static long _minChunkSize = 1L << 20;
+
+    /**
+     * The largest chunk, well within the limit of a single mapping.
+     **/
+    private final static long _maxChunkSize = 1L << 30;
+
+    /**
+     * The number of bytes read at once while looking for a line boundary.
+     **/
+    private final static int _windowSize = 64 * 1024;
+
+    /**
+     * The pathname of the file.
+     **/
+    private final String _path;
+
+    /**
+     * The bands that share the parsing of the chunks.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The size of the file in bytes.
+     **/
+    private final long _size;
+
+    /**
+     * The number of rows given on the first line.
+     **/
+    private int _rows;
+
+    /**
+     * The number of columns given on the first line.
+     **/
+    private int _columns;
+
+    /**
+     * The rule given on the first line, or <code>null</code> if none.
+     **/
+    private Rule _rule;
+
+    /**
+     * The position of the first byte after the first line.
+     **/
+    private long _bodyStart;
+
+    /**
+     * The position at which each chunk starts, followed by the end of the
+     * file.
+     **/
+    private long[] _starts;
+
+    /**
+     * The coordinates parsed from each chunk.
+     **/
+    private int[][] _cells;
+
+    /**
+     * The number of coordinate pairs parsed from each chunk.
+     **/
+    private int[] _counts;
+
+    /**
+     * The number of lines in each chunk.
+     **/
+    private long[] _lines;
+
+    /**
+     * The error found in each chunk, or <code>null</code>.
+     **/
+    private String[] _errors;
+
+    /**
+     * The line within its chunk of each error.
+     **/
+    private long[] _errorLines;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class InitialStateReader
+// =============================================================================
@@ -10,6 +10,14 @@
 
 
 
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+// =============================================================================
+
+
+
 // =============================================================================
 public class Life {
 // =============================================================================
@@ -22,54 +30,138 @@ public class Life {
      *
      * @param args Command line arguments containing the pathname to the initial
      *             state of the universe and the number of generations to
-     *             compute.
+     *             compute, followed by any <code>name=value</code> options.
      */
     public static void main (String[] args) {
 
 	// If the wrong number of arguments were passed, show the usage and
 	// exit.
-	if (args.length != 3) {
+	if (args.length < 3) {
 	    showUsageAndExit();
 	}
 
 	// Assign names to the command line arguments.
 	String initialStatePathname = args[0];
-	int generations = 0;
+	long generations = 0;
 	try {
-	    generations = Integer.parseInt(args[1]);
+	    generations = Long.parseLong(args[1]);
 	} catch (NumberFormatException e) {
 	    showUsageAndExit();
 	}
 	String interfaceType = args[2];
+	Options options = new Options(args, 3);
+
+	// A batch plays every game in a directory or manifest instead.
+	if (interfaceType.equals("Batch")) {
+	    runBatch(initialStatePathname, generations, options);
+	    return;
+	}
 	    
 	// Create the game; then create the interface to control the game.
-	Game game = new Game(initialStatePathname);
+	Game game = null;
+	try {
+	    game = new Game(initialStatePathname, options);
+	} catch (IOException e) {
+	    Support.abort("ERROR: " + e.getMessage());
+	}
 	UserInterface ui = null;
 	if (interfaceType.equals("Text")) {
-	    ui = new TextInterface(game);
+	    ui = new TextInterface(game, options);
 	} else if (interfaceType.equals("Graphic")) {
-	    ui = new GraphicInterface(game);
+	    ui = new GraphicInterface(game, options);
+	} else if (interfaceType.equals("Headless")) {
+	    ui = new HeadlessInterface(game);
 	} else {
 	    showUsageAndExit();
 	}
 	
-	// Play the game, evolving one generation at a time.
+	// Play the game, evolving one generation at a time.  A graphic game
+	// stays on the screen until its window is closed.
 	game.play(generations, ui);
+	if (!interfaceType.equals("Graphic")) {
+	    game.close();
+	}
 
     } // main ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Play a batch of games in this JVM, and exit with an error if any of
+     * them could not be played.
+     *
+     * @param source A directory of initial-state files, or a manifest.
+     * @param generations The number of generations for each game that does
+     *                    not give its own.
+     * @param options The settings shared by every game.
+     */
+    private static void runBatch (String source,
+				  long generations,
+				  Options options) {
+
+	int failed = 0;
+	try {
+	    failed = new BatchRunner(source, generations, options).run();
+	} catch (IOException e) {
+	    Support.abort("ERROR: " + e.getMessage());
+	}
+	if (failed > 0) {
+	    Support.abort("ERROR: " + failed + " games could not be played");
+	}
+
+    } // runBatch ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Print the correct command-line usage and then exit.
      **/
     protected static void showUsageAndExit () {
 
-	Support.abort("USAGE: java Life <initial state pathname>\n" +
+	Support.abort("USAGE: java Life" +
+		      " <initial state or checkpoint pathname>\n" +
 		      "                 <number of generations to compute>\n" +
-		      "                 <interface type [Text | Graphic]>");
+		      "                 <interface type" +
+		      " [Text | Graphic | Headless]>\n" +
+		      "   or: java Life" +
+		      " <directory of .init files or manifest>\n" +
+		      "                 <number of generations to compute>" +
+		      " Batch\n" +
+		      "                 [batch.games=" +
+		      "<games played at once>]\n" +
+		      "  with any of:\n" +
+		      "                 [engine=<Array | Bit | Cell |\n" +
+		      "                         Distributed | HashLife |\n" +
+		      "                         OffHeap | Sparse | Table |\n" +
+		      "                         Vector>]\n" +
+		      "                 [threads=<count>]" +
+		      " [topology=<bounded | toroidal>]\n" +
+		      "                 [rule=" +
+		      "<B<digits>/S<digits>, such as B36/S23>]\n" +
+		      "                 [offheap.file=" +
+		      "<file for the OffHeap cells>]\n" +
+		      "                 [workers=" +
+		      "<Distributed worker processes>]\n" +
+		      "                 [checkpoint.file=" +
+		      "<file to save the game to>]" +
+		      " [checkpoint.every=<generations>]\n" +
+		      "                 [delta.file=" +
+		      "<file to record the changes in>]\n" +
+		      "                 [jump=" +
+		      "<k, to show every 2^k generations>]\n" +
+		      "                 [cycles=<off | stop | skip>]" +
+		      " [cycles.history=<generations>]\n" +
+		      "                 [stats=<on | off>]" +
+		      " [stats.window=<moves summarized>]\n" +
+		      "                 [text.every=<n>]" +
+		      " [text.board=<on | off>]\n" +
+		      "                 [graphic.rate=" +
+		      "<generations per second>]" +
+		      " [graphic.fps=<n>]");
 	
     }
     // =========================================================================
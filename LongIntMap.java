@@ -0,0 +1,326 @@
+// =============================================================================
+/**
+ * The <code>LongIntMap</code> class.  Map <code>long</code> keys to non-zero
+ * <code>int</code> values in an open-addressing hash table of primitive
+ * arrays, so that neither keys nor values are boxed.  A value of zero means
+ * that the key is absent.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class LongIntMap {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty map.
+     *
+     * @param expected The number of keys to make room for at first.
+     **/
+    public LongIntMap (int expected) {
+
+        int capacity = capacityFor(expected);
+        _keys   = new long[capacity];
+        _values = new int[capacity];
+        _size   = 0;
+
+    } // LongIntMap ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the value of a key.
+     *
+     * @param key The key to look up.
+     * @return The value of the key, or zero if the key is absent.
+     **/
+    public int get (long key) {
+
+        int mask = _keys.length - 1;
+        for (int slot = hash(key) & mask; _values[slot] != 0;
+             slot = (slot + 1) & mask) {
+            if (_keys[slot] == key) {
+                return _values[slot];
+            }
+        }
+
+        return 0;
+
+    } // get ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the value of a key, adding the key if it is absent.
+     *
+     * @param key The key to set.
+     * @param value The new, non-zero value of the key.
+     **/
+    public void put (long key, int value) {
+
+        int slot = find(key);
+        _values[slot] = value;
+
+    } // put ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add to the value of a key, adding the key if it is absent.
+     *
+     * @param key The key to change.
+     * @param delta The amount to add; the result must not be zero.
+     * @return The new value of the key.
+     **/
+    public int add (long key, int delta) {
+
+        int slot = find(key);
+        _values[slot] += delta;
+
+        return _values[slot];
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of keys.
+     *
+     * @return The number of keys in the map.
+     **/
+    public int size () {
+
+        return _size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove every key.  The table keeps its capacity unless that is far
+     * more than its last keys needed, as after a spike in the number of
+     * keys, in which case it is cut down to fit them, so that a walk over
+     * the slots costs time in proportion to the keys the map holds now
+     * rather than to the most it ever held.
+     **/
+    public void clear () {
+
+        int capacity = capacityFor(_size);
+        if (_keys.length > capacity * _shrinkRatio) {
+            _keys   = new long[capacity];
+            _values = new int[capacity];
+        } else if (_size > 0) {
+            Arrays.fill(_values, 0);
+        }
+        _size = 0;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of slots in the table.  Together with
+     * <code>keyAt()</code> and <code>valueAt()</code>, this lets callers visit
+     * every key without allocating an iterator.
+     *
+     * @return The number of slots.
+     **/
+    public int capacity () {
+
+        return _keys.length;
+
+    } // capacity ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the key held in a slot.
+     *
+     * @param slot The slot, from 0 up to the capacity.
+     * @return The key in the slot; meaningful only if the slot's value is not
+     *         zero.
+     **/
+    public long keyAt (int slot) {
+
+        return _keys[slot];
+
+    } // keyAt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the value held in a slot.
+     *
+     * @param slot The slot, from 0 up to the capacity.
+     * @return The value in the slot, or zero if the slot is empty.
+     **/
+    public int valueAt (int slot) {
+
+        return _values[slot];
+
+    } // valueAt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the slot of a key, claiming an empty slot for it if it is absent.
+     *
+     * @param key The key to find.
+     * @return The slot of the key.
+     **/
+    private int find (long key) {
+
+        int mask = _keys.length - 1;
+        int slot = hash(key) & mask;
+        while (_values[slot] != 0) {
+            if (_keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Keep the table at most half full so that probes stay short.
+        if ((_size + 1) * 2 > _keys.length) {
+            grow();
+            return find(key);
+        }
+
+        _keys[slot] = key;
+        _size += 1;
+
+        return slot;
+
+    } // find ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Double the capacity of the table, re-inserting every key.
+     **/
+    private void grow () {
+
+        long[] oldKeys   = _keys;
+        int[]  oldValues = _values;
+
+        _keys   = new long[oldKeys.length * 2];
+        _values = new int[oldValues.length * 2];
+
+        int mask = _keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i += 1) {
+            if (oldValues[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (_values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                _keys[slot]   = oldKeys[i];
+                _values[slot] = oldValues[i];
+            }
+        }
+
+    } // grow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the capacity that keeps a number of keys at most half full.
+     **/
+    private static int capacityFor (int keys) {
+
+        int capacity = _minCapacity;
+        while (capacity < keys * 2L) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+
+    } // capacityFor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Scramble the bits of a key so that nearby keys land far apart.
+     **/
+    private static int hash (long key) {
+
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return (int)key;
+
+    } // hash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The smallest number of slots.
+     **/
+    private final static int _minCapacity = 16;
+
+    /**
+     * How many times larger than its keys need a table may be before
+     * <code>clear()</code> cuts it down.
+     **/
+    private final static int _shrinkRatio = 4;
+
+    /**
+     * The key in each slot.
+     **/
+    private long[] _keys;
+
+    /**
+     * The value in each slot, or zero for an empty slot.
+     **/
+    private int[] _values;
+
+    /**
+     * The number of keys.
+     **/
+    private int _size;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LongIntMap
+// =============================================================================
@@ -0,0 +1,578 @@
+// =============================================================================
+/**
+ * The <code>OffHeapEngine</code> class.  Evolve a universe held as packed
+ * bits, one bit per cell, as in <code>BitEngine</code>, but keep the bits
+ * outside the Java heap, so that the size of the universe is not bounded by
+ * the heap and the garbage collector never has to look at it.
+ *
+ * Each generation is a series of buffers of <code>long</code> words, each
+ * holding as many whole rows as fit in a gigabyte, with an all-dead ghost row
+ * above and below the universe.  The buffers are either direct buffers, whose
+ * total is bounded by <code>-XX:MaxDirectMemorySize</code> (by default, the
+ * size of the heap), or regions of a file mapped into memory, which are
+ * bounded only by the disk and which the operating system pages in and out
+ * as needed.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+// =============================================================================
+
+
+
+// =============================================================================
+public class OffHeapEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells in direct
+     * buffers, evolved by a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public OffHeapEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), null, Rule.CONWAY);
+
+    } // OffHeapEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead
+     * cells, evolved in parallel bands of rows by the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param mapFile The file into which to map both generations, which is
+     *                emptied first, or <code>null</code> to hold them in
+     *                direct buffers.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public OffHeapEngine (int rows, int columns, Bands bands, String mapFile,
+                          Rule rule) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0) || (rows > Integer.MAX_VALUE - 8)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+
+        _rows      = rows;
+        _columns   = columns;
+        _words     = (columns + 63) >>> 6;
+        _chunkRows = Math.max(1, _chunkWords / _words);
+        _bands     = bands;
+        _rule      = rule;
+        _births    = new long[rows];
+        _deaths    = new long[rows];
+
+        // Keep only the bits of the last word that hold real columns.
+        _lastMask = ((columns & 63) == 0) ? -1L : (1L << (columns & 63)) - 1;
+
+        try {
+            if (mapFile == null) {
+                _current = allocate(null, 0);
+                _next    = allocate(null, 0);
+            } else {
+                try (RandomAccessFile file = new RandomAccessFile(mapFile,
+                                                                  "rw")) {
+                    long bytes = (long)(rows + 2) * _words * 8;
+                    file.setLength(0);
+                    file.setLength(2 * bytes);
+                    _current = allocate(file.getChannel(), 0);
+                    _next    = allocate(file.getChannel(), bytes);
+                }
+            }
+        } catch (IOException e) {
+            Support.abort("ERROR: Cannot map the grid into " + mapFile +
+                          ": " + e.getMessage());
+        } catch (OutOfMemoryError e) {
+            Support.abort("ERROR: Not enough direct memory for the grid; " +
+                          "raise -XX:MaxDirectMemorySize or use offheap.file");
+        }
+
+    } // OffHeapEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Allocate the buffers of one generation, every cell dead.
+     *
+     * @param channel The file into which to map the buffers, or
+     *                <code>null</code> to allocate direct buffers.
+     * @param offset The position in the file of the first buffer.
+     * @return The buffers, each holding <code>_chunkRows</code> rows but the
+     *         last.
+     * @throws IOException If the file cannot be mapped.
+     **/
+    private LongBuffer[] allocate (FileChannel channel, long offset)
+        throws IOException {
+
+        int rows = _rows + 2;
+        LongBuffer[] buffers = new LongBuffer[(rows + _chunkRows - 1) /
+                                              _chunkRows];
+        for (int chunk = 0; chunk < buffers.length; chunk += 1) {
+            int  chunkRows = Math.min(_chunkRows, rows - chunk * _chunkRows);
+            int  bytes     = chunkRows * _words * 8;
+            ByteBuffer buffer;
+            if (channel == null) {
+                buffer = ByteBuffer.allocateDirect(bytes);
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                                     offset,
+                                     bytes);
+                offset += bytes;
+            }
+            buffers[chunk] = buffer.order(ByteOrder.nativeOrder())
+                                   .asLongBuffer();
+        }
+
+        return buffers;
+
+    } // allocate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        long word = buffer(_current, row + 1).get(start(row + 1) +
+                                                  (column >>> 6));
+
+        return ((word >>> column) & 1L) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle a word at a time, reading the
+     * words in place.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        int  right     = left + columns;
+        int  firstWord = left >>> 6;
+        int  lastWord  = (right - 1) >>> 6;
+        long lastMask  = -1L >>> (-right & 63);
+        long count     = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            LongBuffer buffer = buffer(_current, row + 1);
+            int        start  = start(row + 1);
+            for (int word = firstWord; word <= lastWord; word += 1) {
+                long cells = buffer.get(start + word);
+                if (word == firstWord) {
+                    cells &= -1L << left;
+                }
+                if (word == lastWord) {
+                    cells &= lastMask;
+                }
+                count += Long.bitCount(cells);
+            }
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        LongBuffer buffer = buffer(_current, row + 1);
+        int        index  = start(row + 1) + (column >>> 6);
+        long       word   = buffer.get(index);
+        if (((word >>> column) & 1L) == 0) {
+            _population += 1;
+        }
+        buffer.put(index, word | (1L << column));
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void getRow (int row, long[] words, int offset) {
+
+        buffer(_current, row + 1).get(start(row + 1), words, offset, _words);
+
+    } // getRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation.  Each band of rows reads only the
+     * current generation and writes only its own rows of the next.
+     **/
+    public void evolve () {
+
+        _bands.run(_rows, (first, last) -> {
+                for (int row = first; row < last; row += 1) {
+                    evolveRow(row);
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int row = 0; row < _rows; row += 1) {
+            births += _births[row];
+            deaths += _deaths[row];
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of one row, a word at a time.  The words
+     * of the three rows are read once each, and slide from east to west as
+     * the row is crossed.
+     *
+     * @param row The row to evolve.
+     **/
+    private void evolveRow (int row) {
+
+        // The ghost rows stand in for the rows beyond the edges.
+        LongBuffer above  = buffer(_current, row);
+        LongBuffer middle = buffer(_current, row + 1);
+        LongBuffer below  = buffer(_current, row + 2);
+        LongBuffer result = buffer(_next,    row + 1);
+        int aboveStart  = start(row);
+        int middleStart = start(row + 1);
+        int belowStart  = start(row + 2);
+
+        long aboveWest  = 0;
+        long middleWest = 0;
+        long belowWest  = 0;
+        long aboveWord  = above.get(aboveStart);
+        long middleWord = middle.get(middleStart);
+        long belowWord  = below.get(belowStart);
+        long births     = 0;
+        long deaths     = 0;
+        for (int word = 0; word < _words; word += 1) {
+
+            boolean hasEast    = (word + 1 < _words);
+            long    aboveEast  = hasEast ? above.get(aboveStart + word + 1)
+                                         : 0;
+            long    middleEast = hasEast ? middle.get(middleStart + word + 1)
+                                         : 0;
+            long    belowEast  = hasEast ? below.get(belowStart + word + 1)
+                                         : 0;
+
+            long next = BitEngine.nextWord(
+                            _rule,
+                            BitEngine.west(aboveWord, aboveWest),
+                            aboveWord,
+                            BitEngine.east(aboveWord, aboveEast),
+                            BitEngine.west(middleWord, middleWest),
+                            middleWord,
+                            BitEngine.east(middleWord, middleEast),
+                            BitEngine.west(belowWord, belowWest),
+                            belowWord,
+                            BitEngine.east(belowWord, belowEast));
+
+            // Cells past the last column never come to life.
+            if (!hasEast) {
+                next &= _lastMask;
+            }
+
+            result.put(middleStart + word, next);
+            long diff = next ^ middleWord;
+            births += Long.bitCount(diff & next);
+            deaths += Long.bitCount(diff & middleWord);
+
+            aboveWest  = aboveWord;
+            middleWest = middleWord;
+            belowWest  = belowWord;
+            aboveWord  = aboveEast;
+            middleWord = middleEast;
+            belowWord  = belowEast;
+
+        }
+
+        _births[row] = births;
+        _deaths[row] = deaths;
+
+    } // evolveRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Swap the current and next generations, and account for the births and
+     * deaths.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges();
+        }
+
+        LongBuffer[] swap = _current;
+        _current = _next;
+        _next = swap;
+
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about every cell that differs between the current and
+     * next generations.  Only the rows with a birth or death are examined.
+     **/
+    private void reportChanges () {
+
+        for (int row = 0; row < _rows; row += 1) {
+            if ((_births[row] == 0) && (_deaths[row] == 0)) {
+                continue;
+            }
+            LongBuffer current = buffer(_current, row + 1);
+            LongBuffer next    = buffer(_next,    row + 1);
+            int        start   = start(row + 1);
+            for (int word = 0; word < _words; word += 1) {
+                long nextWord = next.get(start + word);
+                long diff     = nextWord ^ current.get(start + word);
+                while (diff != 0) {
+                    int bit = Long.numberOfTrailingZeros(diff);
+                    _listener.cellChanged(row,
+                                          (word << 6) + bit,
+                                          ((nextWord >>> bit) & 1) != 0);
+                    diff &= diff - 1;
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the buffer that holds a row, counting the ghost row above the
+     * universe as row 0.
+     **/
+    private LongBuffer buffer (LongBuffer[] buffers, int row) {
+
+        return buffers[row / _chunkRows];
+
+    } // buffer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the first word of a row in its buffer, counting the ghost row
+     * above the universe as row 0.
+     **/
+    private int start (int row) {
+
+        return (row % _chunkRows) * _words;
+
+    } // start ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The largest number of words in one buffer:  a gigabyte's worth.
+     **/
+    private final static int _chunkWords = 1 << 27;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The number of words needed to hold each row.
+     **/
+    private final int _words;
+
+    /**
+     * The number of rows in each buffer, the last of which may hold fewer.
+     **/
+    private final int _chunkRows;
+
+    /**
+     * The bits of the last word of each row that hold real columns.
+     **/
+    private final long _lastMask;
+
+    /**
+     * The current generation, with the ghost rows, split across buffers.
+     **/
+    private LongBuffer[] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private LongBuffer[] _next;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The number of cells born in each row, for the bands to fill in without
+     * sharing a counter.
+     **/
+    private final long[] _births;
+
+    /**
+     * The number of cells that die in each row.
+     **/
+    private final long[] _deaths;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class OffHeapEngine
+// =============================================================================
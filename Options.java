@@ -0,0 +1,157 @@
+// =============================================================================
+/**
+ * The <code>Options</code> class.  Hold the optional settings given on the
+ * command line as <code>name=value</code> pairs, such as
+ * <code>engine=Bit</code>.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.HashMap;
+import java.util.Map;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Options {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The default constructor.  Create an empty set of options, so that every
+     * setting takes its default value.
+     **/
+    public Options () {
+
+        _values = new HashMap<String, String>();
+
+    } // Options ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Parse the <code>name=value</code> pairs
+     * from a command line.
+     *
+     * @param args The command line arguments.
+     * @param first The index of the first argument that is an option.
+     **/
+    public Options (String[] args, int first) {
+
+        this();
+        for (int i = first; i < args.length; i += 1) {
+            int split = args[i].indexOf('=');
+            if (split <= 0) {
+                Support.abort("ERROR: Expected name=value, found: " + args[i]);
+            }
+            set(args[i].substring(0, split), args[i].substring(split + 1));
+        }
+
+    } // Options ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set an option, replacing any earlier value.
+     *
+     * @param name The name of the option.
+     * @param value The value of the option.
+     **/
+    public void set (String name, String value) {
+
+        _values.put(name, value);
+
+    } // set ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether an option was given.
+     *
+     * @param name The name of the option.
+     * @return <code>true</code> if the option has a value.
+     **/
+    public boolean has (String name) {
+
+        return _values.containsKey(name);
+
+    } // has ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the value of an option.
+     *
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option was not given.
+     * @return The value of the option.
+     **/
+    public String getString (String name, String defaultValue) {
+
+        String value = _values.get(name);
+        return (value == null) ? defaultValue : value;
+
+    } // getString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the value of an integer option.
+     *
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option was not given.
+     * @return The value of the option.
+     **/
+    public int getInt (String name, int defaultValue) {
+
+        String value = _values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        int result = defaultValue;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            Support.abort("ERROR: Option " + name + " must be an integer: " +
+                          value);
+        }
+
+        return result;
+
+    } // getInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The value of each given option, keyed by name.
+     **/
+    private Map<String, String> _values;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Options
+// =============================================================================
@@ -0,0 +1,408 @@
+// =============================================================================
+/**
+ * The <code>Rule</code> class.  A life-like rule, which decides the next
+ * state of a cell from its own state and its number of live neighbors alone.
+ * A rule is written <code>B</code><i>digits</i><code>/S</code><i>digits</i>:
+ * the numbers of neighbors with which a dead cell is born, and those with
+ * which a live cell survives.  Conway's rules are <code>B3/S23</code>;
+ * HighLife is <code>B36/S23</code>, Day &amp; Night is
+ * <code>B3678/S34678</code>, and Seeds is <code>B2/S</code>.
+ *
+ * The rule is compiled into bit masks, from which each engine looks up a
+ * cell's fate with shifts and logic alone, so that every rule runs through
+ * the same code at the same speed, with no branch on the rule.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public final class Rule {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param births The numbers of neighbors with which a dead cell is born,
+     *               as bit <i>n</i> for <i>n</i> neighbors, from 0 to 8.
+     * @param survivals The numbers of neighbors with which a live cell
+     *                  survives, in the same form.
+     **/
+    public Rule (int births, int survivals) {
+
+        if ((births & ~_allCounts) != 0 || (survivals & ~_allCounts) != 0) {
+            Support.abort("ERROR: Invalid rule masks: " + births + ", " +
+                          survivals);
+        }
+
+        _births    = births;
+        _survivals = survivals;
+        _table     = births | (survivals << 9);
+
+        // The bit-sliced form, as whole words:  the next state of a dead cell
+        // with an even count from 0 to 6, and where the odd count above it
+        // differs; the same for the difference made by the cell being alive;
+        // and where a count of 8 differs from a count of 0.
+        int flips = births ^ survivals;
+        _dead0 = word(births, 0);
+        _dead2 = word(births, 2);
+        _dead4 = word(births, 4);
+        _dead6 = word(births, 6);
+        _deadOdd0 = word(births ^ (births >>> 1), 0);
+        _deadOdd2 = word(births ^ (births >>> 1), 2);
+        _deadOdd4 = word(births ^ (births >>> 1), 4);
+        _deadOdd6 = word(births ^ (births >>> 1), 6);
+        _flip0 = word(flips, 0);
+        _flip2 = word(flips, 2);
+        _flip4 = word(flips, 4);
+        _flip6 = word(flips, 6);
+        _flipOdd0 = word(flips ^ (flips >>> 1), 0);
+        _flipOdd2 = word(flips ^ (flips >>> 1), 2);
+        _flipOdd4 = word(flips ^ (flips >>> 1), 4);
+        _flipOdd6 = word(flips ^ (flips >>> 1), 6);
+        _deadEight = word(births ^ (births >>> 8), 0);
+        _flipEight = word(flips ^ (flips >>> 8), 0);
+
+    } // Rule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a rule written as <code>B</code><i>digits</i><code>/S</code>
+     * <i>digits</i>, in either case.  Each part may be empty, but each digit
+     * must be from 0 to 8 and appear only once.
+     *
+     * @param spec The written rule.
+     * @return The rule, or <code>null</code> if it is not well formed.
+     **/
+    public static Rule parse (String spec) {
+
+        String[] parts = spec.toUpperCase().split("/", -1);
+        if ((parts.length != 2) ||
+            !parts[0].startsWith("B") || !parts[1].startsWith("S")) {
+            return null;
+        }
+
+        int births    = digits(parts[0].substring(1));
+        int survivals = digits(parts[1].substring(1));
+        if ((births < 0) || (survivals < 0)) {
+            return null;
+        }
+
+        return new Rule(births, survivals);
+
+    } // parse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Turn a string of distinct digits from 0 to 8 into a mask.
+     *
+     * @return The mask, or -1 if the string holds anything else.
+     **/
+    private static int digits (String digits) {
+
+        int mask = 0;
+        for (int i = 0; i < digits.length(); i += 1) {
+            int count = digits.charAt(i) - '0';
+            if ((count < 0) || (count > 8) || ((mask & (1 << count)) != 0)) {
+                return -1;
+            }
+            mask |= 1 << count;
+        }
+
+        return mask;
+
+    } // digits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Spread one bit of a mask across a whole word.
+     *
+     * @return -1 if bit <code>count</code> of the mask is set, and 0 if not.
+     **/
+    private static long word (int mask, int count) {
+
+        return -(long)((mask >>> count) & 1);
+
+    } // word ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the numbers of neighbors with which a dead cell is born.
+     *
+     * @return Bit <i>n</i> for each count <i>n</i>.
+     **/
+    public int getBirths () {
+
+        return _births;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the numbers of neighbors with which a live cell survives.
+     *
+     * @return Bit <i>n</i> for each count <i>n</i>.
+     **/
+    public int getSurvivals () {
+
+        return _survivals;
+
+    } // getSurvivals ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a dead cell with no live neighbors is born, which
+     * would fill an unbounded universe at once.
+     *
+     * @return <code>true</code> if the rule includes <code>B0</code>.
+     **/
+    public boolean bornAlone () {
+
+        return (_births & 1) != 0;
+
+    } // bornAlone ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a live cell with no live neighbors survives.
+     *
+     * @return <code>true</code> if the rule includes <code>S0</code>.
+     **/
+    public boolean survivesAlone () {
+
+        return (_survivals & 1) != 0;
+
+    } // survivesAlone ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide the next state of one cell.
+     *
+     * @param alive 1 if the cell is alive, and 0 if it is dead.
+     * @param count The number of live neighbors, from 0 to 8.
+     * @return 1 if the cell will be alive, and 0 if it will be dead.
+     **/
+    public int next (int alive, int count) {
+
+        return (_table >>> (alive * 9 + count)) & 1;
+
+    } // next ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule as a mask indexed by the sum of a cell and its
+     * neighbors, for engines that count the cell itself:  bit <i>s</i> for a
+     * dead cell with that sum, and bit 10 + <i>s</i> for a live one.
+     *
+     * @return The mask of sums with which a cell is alive next.
+     **/
+    public int getSumMask () {
+
+        return _births | (_survivals << 11);
+
+    } // getSumMask ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide the next state of 64 cells at once, from the binary digits of
+     * their neighbor counts, one word per digit.  The state of a dead cell
+     * for each count from 0 to 7 is selected by a tree of multiplexers on
+     * the digits, as is the difference made by the cell being alive, and the
+     * cell's own state then applies that difference.
+     *
+     * @param center The cells themselves.
+     * @param ones The ones digit of each cell's count.
+     * @param twos The twos digit.
+     * @param fours The fours digit.
+     * @param eights The eights digit, set only for a count of 8.
+     * @return The cells in the next generation.
+     **/
+    public long nextWord (long center, long ones, long twos, long fours,
+                          long eights) {
+
+        // Select on the ones digit within each pair of counts.
+        long dead0 = _dead0 ^ (_deadOdd0 & ones);
+        long dead2 = _dead2 ^ (_deadOdd2 & ones);
+        long dead4 = _dead4 ^ (_deadOdd4 & ones);
+        long dead6 = _dead6 ^ (_deadOdd6 & ones);
+        long flip0 = _flip0 ^ (_flipOdd0 & ones);
+        long flip2 = _flip2 ^ (_flipOdd2 & ones);
+        long flip4 = _flip4 ^ (_flipOdd4 & ones);
+        long flip6 = _flip6 ^ (_flipOdd6 & ones);
+
+        // Then on the twos, and then on the fours.
+        dead0 ^= (dead0 ^ dead2) & twos;
+        dead4 ^= (dead4 ^ dead6) & twos;
+        flip0 ^= (flip0 ^ flip2) & twos;
+        flip4 ^= (flip4 ^ flip6) & twos;
+        dead0 ^= (dead0 ^ dead4) & fours;
+        flip0 ^= (flip0 ^ flip4) & fours;
+
+        // A count of 8 has the digits of a count of 0 besides the eights.
+        dead0 ^= _deadEight & eights;
+        flip0 ^= _flipEight & eights;
+
+        return dead0 ^ (flip0 & center);
+
+    } // nextWord ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the rule in the form that <code>parse()</code> reads.
+     *
+     * @return The rule, such as <code>B3/S23</code>.
+     **/
+    public String toString () {
+
+        StringBuilder text = new StringBuilder("B");
+        for (int count = 0; count <= 8; count += 1) {
+            if ((_births & (1 << count)) != 0) {
+                text.append(count);
+            }
+        }
+        text.append("/S");
+        for (int count = 0; count <= 8; count += 1) {
+            if ((_survivals & (1 << count)) != 0) {
+                text.append(count);
+            }
+        }
+
+        return text.toString();
+
+    } // toString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compare two rules.
+     *
+     * @return <code>true</code> if the other rule has the same births and
+     *         survivals.
+     **/
+    public boolean equals (Object other) {
+
+        return (other instanceof Rule) && (((Rule)other)._table == _table);
+
+    } // equals ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int hashCode () {
+
+        return _table;
+
+    } // hashCode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * Conway's rules, <code>B3/S23</code>.
+     **/
+    public final static Rule CONWAY = new Rule(1 << 3, (1 << 2) | (1 << 3));
+
+    /**
+     * The bits of every count from 0 to 8.
+     **/
+    private final static int _allCounts = (1 << 9) - 1;
+
+    /**
+     * The numbers of neighbors with which a dead cell is born.
+     **/
+    private final int _births;
+
+    /**
+     * The numbers of neighbors with which a live cell survives.
+     **/
+    private final int _survivals;
+
+    /**
+     * The births in bits 0 to 8 and the survivals in bits 9 to 17.
+     **/
+    private final int _table;
+
+    /**
+     * The next state of a dead cell with 0, 2, 4, and 6 live neighbors, as
+     * whole words.
+     **/
+    private final long _dead0, _dead2, _dead4, _dead6;
+
+    /**
+     * Where the next state of a dead cell with 1, 3, 5, and 7 live neighbors
+     * differs from that with one fewer.
+     **/
+    private final long _deadOdd0, _deadOdd2, _deadOdd4, _deadOdd6;
+
+    /**
+     * Where the next state of a live cell with 0, 2, 4, and 6 live neighbors
+     * differs from that of a dead one.
+     **/
+    private final long _flip0, _flip2, _flip4, _flip6;
+
+    /**
+     * Where that difference for 1, 3, 5, and 7 live neighbors differs from
+     * the one for one fewer.
+     **/
+    private final long _flipOdd0, _flipOdd2, _flipOdd4, _flipOdd6;
+
+    /**
+     * Where the next state of a dead cell with 8 live neighbors differs from
+     * that with none.
+     **/
+    private final long _deadEight;
+
+    /**
+     * Where the difference made by the cell being alive differs between 8
+     * live neighbors and none.
+     **/
+    private final long _flipEight;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Rule
+// =============================================================================
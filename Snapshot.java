@@ -0,0 +1,251 @@
+// =============================================================================
+/**
+ * The <code>Snapshot</code> class.  An immutable copy of the cells of a
+ * <code>Game</code> at one generation, as seen through a
+ * <code>Viewport</code>.  A snapshot can be handed to another thread, which
+ * may read it while the game goes on evolving.
+ *
+ * Only the cells inside the viewport are copied.  When zoomed in, they are
+ * packed one bit per cell; when zoomed out, each pixel holds the density of
+ * its block of cells instead, counted through
+ * <code>Game.getPopulation()</code> so that an engine can answer from its
+ * own summaries of the population.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public final class Snapshot {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Copy the whole board of a <code>Game</code>, one cell
+     * per pixel.
+     *
+     * @param game The <code>Game</code> to copy.
+     **/
+    public Snapshot (Game game) {
+
+        this(game, new Viewport(0, 0, 0, game.getColumns(), game.getRows()));
+
+    } // Snapshot ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Copy the part of a <code>Game</code>
+     * inside a viewport.
+     *
+     * @param game The <code>Game</code> to copy.
+     * @param view The part of the board to copy.
+     **/
+    public Snapshot (Game game, Viewport view) {
+
+        _view       = view;
+        _rows       = game.getRows();
+        _columns    = game.getColumns();
+        _generation = game.getGeneration();
+        _population = game.getPopulation();
+
+        // Copy only the part of the view that lies on the board.
+        int top    = view.getTop();
+        int left   = view.getLeft();
+        int first  = Math.max(top, 0);
+        int last   = (int)Math.min((long)top + view.getRows(), _rows);
+        int start  = Math.max(left, 0);
+        int end    = (int)Math.min((long)left + view.getColumns(), _columns);
+
+        if (view.getBlockSize() == 1) {
+
+            _words   = (view.getColumns() + 63) >>> 6;
+            _bits    = new long[view.getRows() * _words];
+            _density = null;
+            for (int row = first; row < last; row += 1) {
+                int offset = (row - top) * _words;
+                for (int column = start; column < end; column += 1) {
+                    if (game.isAlive(row, column)) {
+                        int x = column - left;
+                        _bits[offset + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }
+
+        } else {
+
+            // Scale each count so that any live cell shows, however sparse.
+            int  block = view.getBlockSize();
+            long area  = (long)block * block;
+            _words   = 0;
+            _bits    = null;
+            _density = new byte[view.getWidth() * view.getHeight()];
+            for (int y = (first - top) / block; y * (long)block + top < last;
+                 y += 1) {
+                for (int x = (start - left) / block;
+                     x * (long)block + left < end;
+                     x += 1) {
+                    long count = game.getPopulation(top  + y * block,
+                                                    left + x * block,
+                                                    block,
+                                                    block);
+                    if (count > 0) {
+                        _density[y * view.getWidth() + x] =
+                            (byte)(1 + (count * 254) / area);
+                    }
+                }
+            }
+
+        }
+
+    } // Snapshot ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public Viewport getViewport () {
+
+        return _view;
+
+    } // getViewport ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getGeneration () {
+
+        return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell was alive, when zoomed in.
+     *
+     * @param row The row coordinate of the cell, which must be in the view.
+     * @param column The column coordinate of the cell, which must be in the
+     *               view.
+     * @return <code>true</code> if the cell was alive when the snapshot was
+     *         taken.
+     **/
+    public boolean isAlive (int row, int column) {
+
+        int y = row    - _view.getTop();
+        int x = column - _view.getLeft();
+
+        return ((_bits[y * _words + (x >>> 6)] >>> x) & 1L) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the density of live cells in the block shown by a pixel, when
+     * zoomed out.
+     *
+     * @param x The column of the pixel.
+     * @param y The row of the pixel.
+     * @return 0 if the block holds no live cells, and otherwise from 1 for
+     *         the sparsest block to 255 for a full one.
+     **/
+    public int getDensity (int x, int y) {
+
+        return _density[y * _view.getWidth() + x] & 0xff;
+
+    } // getDensity ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The part of the board copied.
+     **/
+    private final Viewport _view;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The generation copied.
+     **/
+    private final long _generation;
+
+    /**
+     * The number of live cells in that generation.
+     **/
+    private final long _population;
+
+    /**
+     * The number of words that hold each row of the view, when zoomed in.
+     **/
+    private final int _words;
+
+    /**
+     * The cells of the view, one bit each, with the words of each row in
+     * turn, or <code>null</code> when zoomed out.
+     **/
+    private final long[] _bits;
+
+    /**
+     * The density of each pixel's block, or <code>null</code> when zoomed
+     * in.
+     **/
+    private final byte[] _density;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Snapshot
+// =============================================================================
@@ -0,0 +1,492 @@
+// =============================================================================
+/**
+ * The <code>SparseEngine</code> class.  Evolve an unbounded universe that
+ * stores only its live cells, keyed by their packed coordinates.  Each
+ * generation counts the live neighbors of every cell next to a live cell, so
+ * that memory and time are proportional to the population rather than to the
+ * size of the board.
+ *
+ * Like <code>HashLifeEngine</code>, cells may wander outside the rows and
+ * columns of the initial state; only that rectangle is visible through
+ * <code>isAlive()</code>.  Coordinates wrap around at the limits of an
+ * <code>int</code>.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class SparseEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells with a
+     * visible rectangle of the given size.
+     *
+     * @param rows The number of visible rows.
+     * @param columns The number of visible columns.
+     **/
+    public SparseEngine (int rows, int columns) {
+
+        this(rows, columns, Rule.CONWAY);
+
+    } // SparseEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead cells
+     * with a visible rectangle of the given size, evolved by the given rule.
+     * The rule may not bring cells to life with no live neighbors, which
+     * would fill the unbounded universe at once.
+     *
+     * @param rows The number of visible rows.
+     * @param columns The number of visible columns.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public SparseEngine (int rows, int columns, Rule rule) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+        if (rule.bornAlone()) {
+            Support.abort("ERROR: The Sparse engine cannot run a rule " +
+                          "with B0: " + rule);
+        }
+
+        _rule    = rule;
+        _lively  = (rule.getBirths() | rule.getSurvivals()) & ~1;
+        _rows    = rows;
+        _columns = columns;
+        _live    = new LongIntMap(0);
+        _next    = new LongIntMap(0);
+        _counts  = new LongIntMap(0);
+
+    } // SparseEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isBounded () {
+
+        return false;
+
+    } // isBounded ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return _live.get(pack(row, column)) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        _live.put(pack(row, column), 1);
+        _visible = null;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation.  Every live cell adds one to the count
+     * of each of its neighbors; the cells with a count can then be judged by
+     * the rule, and every other cell is dead unless the rule lets a live cell
+     * survive alone.  A live cell that does not survive dies, and every other
+     * cell of the next generation is born.
+     **/
+    public void evolve () {
+
+        _counts.clear();
+        for (int slot = 0; slot < _live.capacity(); slot += 1) {
+            if (_live.valueAt(slot) != 0) {
+                long key    = _live.keyAt(slot);
+                int  row    = row(key);
+                int  column = column(key);
+                for (int r = row - 1; r <= row + 1; r += 1) {
+                    for (int c = column - 1; c <= column + 1; c += 1) {
+                        if ((r != row) || (c != column)) {
+                            _counts.add(pack(r, c), 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        _next.clear();
+        long survivors = 0;
+        for (int slot = 0; slot < _counts.capacity(); slot += 1) {
+            int count = _counts.valueAt(slot);
+            if (((_lively >>> count) & 1) != 0) {
+                long key   = _counts.keyAt(slot);
+                int  alive = _live.get(key);
+                int  next  = _rule.next(alive, count);
+                survivors += alive & next;
+                if (next != 0) {
+                    _next.put(key, 1);
+                }
+            }
+        }
+
+        // The live cells with no live neighbors have no count at all.
+        if (_rule.survivesAlone()) {
+            for (int slot = 0; slot < _live.capacity(); slot += 1) {
+                long key = _live.keyAt(slot);
+                if ((_live.valueAt(slot) != 0) && (_counts.get(key) == 0)) {
+                    survivors += 1;
+                    _next.put(key, 1);
+                }
+            }
+        }
+        _nextBirths = _next.size() - survivors;
+        _nextDeaths = _live.size() - survivors;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Swap the current and next generations.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges(_next, _live, true);
+            reportChanges(_live, _next, false);
+        }
+
+        LongIntMap swap = _live;
+        _live = _next;
+        _next = swap;
+        _visible = null;
+
+        _lastBirths = _nextBirths;
+        _lastDeaths = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about the cells of one generation that are missing
+     * from another.
+     *
+     * @param from The cells to report.
+     * @param except The cells not to report.
+     * @param alive Whether the reported cells are born or die.
+     **/
+    private void reportChanges (LongIntMap from,
+                                LongIntMap except,
+                                boolean alive) {
+
+        for (int slot = 0; slot < from.capacity(); slot += 1) {
+            if (from.valueAt(slot) != 0) {
+                long key = from.keyAt(slot);
+                if (except.get(key) == 0) {
+                    _listener.cellChanged(row(key), column(key), alive);
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _live.size();
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle.  The visible live cells are
+     * sorted once per generation, by row and then by column, so that each
+     * row of the rectangle takes two binary searches however large it is.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        if (_visible == null) {
+            sortVisible();
+        }
+
+        long count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            count += (firstAtLeast(pack(row, left + columns)) -
+                      firstAtLeast(pack(row, left)));
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Collect the keys of the live cells within the visible rows and columns
+     * and sort them.  With both coordinates non-negative, the order of the
+     * keys is that of their rows and then of their columns.
+     **/
+    private void sortVisible () {
+
+        long[] keys  = new long[_live.size()];
+        int    count = 0;
+        for (int slot = 0; slot < _live.capacity(); slot += 1) {
+            if (_live.valueAt(slot) != 0) {
+                long key    = _live.keyAt(slot);
+                int  row    = row(key);
+                int  column = column(key);
+                if ((row    >= 0) && (row    < _rows) &&
+                    (column >= 0) && (column < _columns)) {
+                    keys[count] = key;
+                    count += 1;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        _visible      = keys;
+        _visibleCount = count;
+
+    } // sortVisible ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the first visible live cell whose key is no less than a key.
+     *
+     * @param key The key to search for.
+     * @return The index of that cell in the sorted keys, or the number of
+     *         keys if there is none.
+     **/
+    private int firstAtLeast (long key) {
+
+        int low  = 0;
+        int high = _visibleCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (_visible[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+
+    } // firstAtLeast ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack a pair of coordinates into a single key.
+     **/
+    static long pack (int row, int column) {
+
+        return ((long)row << 32) | (column & 0xffffffffL);
+
+    } // pack ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the row coordinate from a key.
+     **/
+    static int row (long key) {
+
+        return (int)(key >> 32);
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the column coordinate from a key.
+     **/
+    static int column (long key) {
+
+        return (int)key;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The rule by which the cells live and die.
+     **/
+    private final Rule _rule;
+
+    /**
+     * The counts of live neighbors, from 1 to 8, with which a cell may be
+     * alive next, whether it is alive now or not.
+     **/
+    private final int _lively;
+
+    /**
+     * The number of visible rows.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of visible columns.
+     **/
+    private final int _columns;
+
+    /**
+     * The live cells of the current generation.
+     **/
+    private LongIntMap _live;
+
+    /**
+     * The live cells of the next generation.
+     **/
+    private LongIntMap _next;
+
+    /**
+     * The live-neighbor count of every cell next to a live cell.
+     **/
+    private final LongIntMap _counts;
+
+    /**
+     * The keys of the visible live cells in ascending order, or
+     * <code>null</code> until a rectangle's population is wanted.
+     **/
+    private long[] _visible;
+
+    /**
+     * The number of keys in <code>_visible</code>.
+     **/
+    private int _visibleCount;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SparseEngine
+// =============================================================================
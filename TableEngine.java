@@ -0,0 +1,508 @@
+// =============================================================================
+/**
+ * The <code>TableEngine</code> class.  Evolve a universe by table lookup.
+ * Each 2x2 block of cells in the next generation depends only on the 4x4
+ * block around it in the current one, so the 16 cells of that block are
+ * packed into an index, and a table precomputed from the rule gives the four
+ * cells of the result at once, with no branches.
+ *
+ * Each row is held as packed bits in <code>long</code> words, shifted two
+ * bits to the right so that each 2x2 result lands on an even bit and never
+ * straddles two words.  The rows, bits, and words around the universe are
+ * ghost cells that stay dead, so that every 4x4 block can be read without
+ * bounds checks.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class TableEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells, evolved by
+     * a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public TableEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), Rule.CONWAY);
+
+    } // TableEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead
+     * cells, evolved in parallel bands of pairs of rows by the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public TableEngine (int rows, int columns, Bands bands, Rule rule) {
+
+        // Ensure that the sizes are valid.
+        if ((rows <= 0) || (columns <= 0) ||
+            (rows    > Integer.MAX_VALUE - 8) ||
+            (columns > Integer.MAX_VALUE - 8)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+
+        // One ghost row above and up to two below, and enough words for the
+        // two ghost bits on the left, the columns, two more on the right, and
+        // a spare word to read past the end.
+        _rows    = rows;
+        _columns = columns;
+        _words   = ((columns + _offset + 2) >>> 6) + 2;
+        _current = new long[rows + 3][_words];
+        _next    = new long[rows + 3][_words];
+        _bands   = bands;
+        _pairs   = (rows + 1) / 2;
+        _births  = new long[_pairs];
+        _deaths  = new long[_pairs];
+        _lastBit = columns + _offset;
+        _table   = buildTable(rule);
+
+    } // TableEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        int bit = column + _offset;
+
+        return ((_current[row + 1][bit >>> 6] >>> bit) & 1L) != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle a word at a time.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        long count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            count += BitEngine.countBits(_current[row + 1],
+                                         left + _offset,
+                                         left + columns + _offset);
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        int    bit   = column + _offset;
+        long[] words = _current[row + 1];
+        if (((words[bit >>> 6] >>> bit) & 1L) == 0) {
+            _population += 1;
+        }
+        words[bit >>> 6] |= 1L << bit;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation.  Each band of pairs of rows reads only
+     * the current generation and writes only its own rows of the next.
+     **/
+    public void evolve () {
+
+        _bands.run(_pairs, (first, last) -> {
+                for (int pair = first; pair < last; pair += 1) {
+                    evolvePair(pair);
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int pair = 0; pair < _pairs; pair += 1) {
+            births += _births[pair];
+            deaths += _deaths[pair];
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of one pair of rows, two columns at a
+     * time.
+     *
+     * @param pair The index of the pair, whose first row is twice that.
+     **/
+    private void evolvePair (int pair) {
+
+        // The rows of the 4x4 blocks, from the row above the pair to the
+        // row below it, and the rows of the result.
+        int    row    = pair * 2;
+        long[] north  = _current[row];
+        long[] upper  = _current[row + 1];
+        long[] lower  = _current[row + 2];
+        long[] south  = _current[row + 3];
+        long[] top    = _next[row + 1];
+        long[] bottom = _next[row + 2];
+        Arrays.fill(top, 0);
+        Arrays.fill(bottom, 0);
+
+        // The result for columns c and c + 1 lies at bit c + 2, and its 4x4
+        // block starts a bit to the left of that.
+        for (int bit = _offset; bit < _lastBit; bit += 2) {
+
+            int index = window(north, bit - 1)        |
+                        (window(upper, bit - 1) << 4) |
+                        (window(lower, bit - 1) << 8) |
+                        (window(south, bit - 1) << 12);
+            long result = _table[index];
+
+            top[bit >>> 6]    |= (result & 3)  << bit;
+            bottom[bit >>> 6] |= (result >>> 2) << bit;
+
+        }
+
+        // Drop the results that fell beyond the last column or the last row.
+        int lastWord = _lastBit >>> 6;
+        top[lastWord]    &= (1L << _lastBit) - 1;
+        bottom[lastWord] &= (1L << _lastBit) - 1;
+        if (row + 1 == _rows) {
+            Arrays.fill(bottom, 0);
+        }
+
+        // Count the births and deaths in the pair.
+        long births = 0;
+        long deaths = 0;
+        for (int word = 0; word <= lastWord; word += 1) {
+            long topDiff    = top[word]    ^ upper[word];
+            long bottomDiff = bottom[word] ^ lower[word];
+            births += Long.bitCount(topDiff    & top[word]) +
+                      Long.bitCount(bottomDiff & bottom[word]);
+            deaths += Long.bitCount(topDiff    & upper[word]) +
+                      Long.bitCount(bottomDiff & lower[word]);
+        }
+        _births[pair] = births;
+        _deaths[pair] = deaths;
+
+    } // evolvePair ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read four consecutive bits of a row, which may span two words.  The
+     * second word is shifted in two steps, so that a shift by the whole
+     * width of a word yields nothing, without a branch.
+     *
+     * @param row The words of the row.
+     * @param bit The first bit to read.
+     * @return The four bits, with the first in the lowest position.
+     **/
+    private static int window (long[] row, int bit) {
+
+        int  word  = bit >>> 6;
+        int  shift = bit & 63;
+        long bits  = (row[word] >>> shift) |
+                     ((row[word + 1] << 1) << (63 - shift));
+
+        return (int)bits & 0xf;
+
+    } // window ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Swap the current and next generations, and account for the births and
+     * deaths.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges();
+        }
+
+        long[][] swap = _current;
+        _current = _next;
+        _next = swap;
+
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about every cell that differs between the current and
+     * next generations.  Only the pairs of rows with a change are examined.
+     **/
+    private void reportChanges () {
+
+        for (int row = 0; row < _rows; row += 1) {
+            int pair = row / 2;
+            if ((_births[pair] == 0) && (_deaths[pair] == 0)) {
+                continue;
+            }
+            long[] current = _current[row + 1];
+            long[] next    = _next[row + 1];
+            for (int word = 0; word < _words; word += 1) {
+                long diff = next[word] ^ current[word];
+                while (diff != 0) {
+                    int bit = Long.numberOfTrailingZeros(diff);
+                    _listener.cellChanged(row,
+                                          (word << 6) + bit - _offset,
+                                          ((next[word] >>> bit) & 1) != 0);
+                    diff &= diff - 1;
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build the table of results.  Bit 4<i>r</i> + <i>c</i> of an index is
+     * the cell in row <i>r</i> and column <i>c</i> of a 4x4 block; bit
+     * 2<i>r</i> + <i>c</i> of the result is the next state of the cell in
+     * row <i>r</i> + 1 and column <i>c</i> + 1, at the center of the block.
+     *
+     * @param rule The rule by which the cells live and die.
+     * @return The table.
+     **/
+    private static byte[] buildTable (Rule rule) {
+
+        byte[] table = new byte[1 << 16];
+        for (int index = 0; index < table.length; index += 1) {
+            int result = 0;
+            for (int r = 0; r < 2; r += 1) {
+                for (int c = 0; c < 2; c += 1) {
+                    int count = 0;
+                    for (int dr = 0; dr < 3; dr += 1) {
+                        for (int dc = 0; dc < 3; dc += 1) {
+                            if ((dr != 1) || (dc != 1)) {
+                                int bit = (r + dr) * 4 + c + dc;
+                                count += (index >>> bit) & 1;
+                            }
+                        }
+                    }
+                    int alive = (index >>> ((r + 1) * 4 + c + 1)) & 1;
+                    result |= rule.next(alive, count) << (r * 2 + c);
+                }
+            }
+            table[index] = (byte)result;
+        }
+
+        return table;
+
+    } // buildTable ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of ghost bits to the left of the first column.
+     **/
+    private final static int _offset = 2;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The number of words in each row, including the ghost bits.
+     **/
+    private final int _words;
+
+    /**
+     * The bit just past the last column.
+     **/
+    private final int _lastBit;
+
+    /**
+     * The current generation, one array of words per row, with a ghost row
+     * above and ghost rows below.
+     **/
+    private long[][] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private long[][] _next;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The next state of the center 2x2 cells of every 4x4 block.
+     **/
+    private final byte[] _table;
+
+    /**
+     * The number of pairs of rows, the last of which may hold only one.
+     **/
+    private final int _pairs;
+
+    /**
+     * The number of cells born in each pair of rows, for the bands to fill
+     * in without sharing a counter.
+     **/
+    private final long[] _births;
+
+    /**
+     * The number of cells that die in each pair of rows.
+     **/
+    private final long[] _deaths;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TableEngine
+// =============================================================================
@@ -3,11 +3,24 @@
  * A text-based user-interface for the <i>Game of Life</i>.  A
  * <code>TextInterface</code> controls the progression from one generation to
  * the next, displaying the state at each generation.
+ *
+ * Each frame is drawn into a single reusable buffer of bytes and written with
+ * one call, rather than one call per cell.  The option
+ * <code>text.every=</code><i>n</i> shows only the generations that are
+ * multiples of <i>n</i>, along with the last generation, and
+ * <code>text.board=off</code> shows only the header line of each frame.
  **/
 // =============================================================================
 
 
 
+// =============================================================================
+// IMPORTS
+
+import java.nio.charset.StandardCharsets;
+// =============================================================================
+
+
 
 // =============================================================================
 public class TextInterface implements UserInterface {
@@ -24,8 +37,45 @@ public class TextInterface implements UserInterface {
      */
     public TextInterface (Game game) {
 
+	this(game, new Options());
+
+    } // TextInterface ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Hold onto the <code>Game</code>, and read
+     * how often and how fully to draw it.
+     *
+     * @param game The <code>Game</code> whose state to draw.
+     * @param options The settings for the display.
+     */
+    public TextInterface (Game game, Options options) {
+
 	_game = game;
 
+	_every = options.getInt("text.every", 1);
+	if (_every <= 0) {
+	    Support.abort("ERROR: text.every must be positive: " + _every);
+	}
+
+	String board = options.getString("text.board", "on");
+	if (!board.equals("on") && !board.equals("off")) {
+	    Support.abort("ERROR: text.board must be on or off: " + board);
+	}
+	_showBoard = board.equals("on");
+
+	// Hold as many whole rows as fit in the largest buffer, plus room for
+	// the header.
+	long rowLength = (long)_game.getColumns() + 1;
+	_rowsPerWrite = (int)Math.max(1, Math.min(_game.getRows(),
+						   _maxBoardBytes / rowLength));
+	_buffer = new byte[_maxHeaderBytes +
+			   (_showBoard ? (int)(_rowsPerWrite * rowLength) : 0) +
+			   1];
+
     } // TextInterface ()
     // =========================================================================
 
@@ -37,27 +87,94 @@ public class TextInterface implements UserInterface {
      */
     public void display () {
 
+	if (_game.getGeneration() % _every == 0) {
+	    draw();
+	}
+
+    } // display ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Display the last generation, unless it was just shown.
+     */
+    public void finish () {
+
+	if (_game.getGeneration() != _drawnGeneration) {
+	    draw();
+	}
+
+    } // finish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Draw the current generation into the buffer and write it out.
+     */
+    private void draw () {
+
+	_drawnGeneration = _game.getGeneration();
+
 	// Provide generation and population counts.
-	System.out.println("Generation = " + _game.getGeneration() +
-			   ", Population = " + _game.getPopulation());
+	String header = ("Generation = " + _game.getGeneration() +
+			 ", Population = " + _game.getPopulation() + "\n");
+	int length = put(header.getBytes(StandardCharsets.US_ASCII), 0);
 
-	// Provide a textual representation of the grid of cells themselves.
-	for (int row = 0; row < _game.getRows(); row += 1) {
-	    for (int column = 0; column < _game.getColumns(); column += 1) {
+	// Provide a textual representation of the grid of cells themselves,
+	// writing the buffer out whenever it cannot hold another row.
+	if (_showBoard) {
+	    int rows = 0;
+	    for (int row = 0; row < _game.getRows(); row += 1) {
 
-		Cell cell = _game.getCell(row, column);
-		System.out.print(cell);
+		if (rows == _rowsPerWrite) {
+		    System.out.write(_buffer, 0, length);
+		    length = 0;
+		    rows = 0;
+		}
 
-	    }
+		for (int column = 0; column < _game.getColumns(); column += 1) {
+		    _buffer[length] = (_game.isAlive(row, column) ?
+				       _live : _dead);
+		    length += 1;
+		}
 
-	    // Move to a new line for the next row.
-	    System.out.println();
+		// Move to a new line for the next row.
+		_buffer[length] = '\n';
+		length += 1;
+		rows += 1;
 
+	    }
 	}
 
-	System.out.println();
+	_buffer[length] = '\n';
+	length += 1;
+	System.out.write(_buffer, 0, length);
+	System.out.flush();
 
-    } // display ()
+    } // draw ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy bytes into the buffer.
+     *
+     * @param bytes The bytes to copy.
+     * @param at The position in the buffer at which to copy them.
+     * @return The position just past the copied bytes.
+     */
+    private int put (byte[] bytes, int at) {
+
+	System.arraycopy(bytes, 0, _buffer, at, bytes.length);
+
+	return at + bytes.length;
+
+    } // put ()
     // =========================================================================
 
 
@@ -79,10 +196,57 @@ public class TextInterface implements UserInterface {
     // =========================================================================
     // DATA MEMBERS
 
+    /**
+     * The character that shows a live cell, as drawn by
+     * <code>Cell.toString()</code>.
+     */
+    private final static byte _live = '+';
+
+    /**
+     * The character that shows a dead cell.
+     */
+    private final static byte _dead = '-';
+
+    /**
+     * The room left for the header line, which holds two numbers of at most
+     * 20 characters each.
+     */
+    private final static int _maxHeaderBytes = 80;
+
+    /**
+     * The most bytes of the board to hold in the buffer at once.
+     */
+    private final static long _maxBoardBytes = 64L * 1024 * 1024;
+
     /**
      * The <code>Game</code> that this interface is controlling.
      */
     private Game _game;
+
+    /**
+     * The interval between the generations that are shown.
+     */
+    private final int _every;
+
+    /**
+     * Whether to show the board below each header line.
+     */
+    private final boolean _showBoard;
+
+    /**
+     * The number of rows that the buffer holds.
+     */
+    private final int _rowsPerWrite;
+
+    /**
+     * The buffer into which each frame is drawn.
+     */
+    private final byte[] _buffer;
+
+    /**
+     * The generation drawn last, or -1 if none has been.
+     */
+    private long _drawnGeneration = -1;
     // =========================================================================
 
 
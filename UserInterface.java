@@ -33,6 +33,18 @@ public interface UserInterface {
 
 
 
+    // =========================================================================
+    /**
+     * Wrap up once the <code>Game</code> has evolved its last generation.  By
+     * default, there is nothing to do.
+     */
+    public default void finish () {
+
+    } // finish ()
+    // =========================================================================
+
+
+
 // =============================================================================
 } // class UserInterface
 // =============================================================================
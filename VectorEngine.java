@@ -0,0 +1,493 @@
+// =============================================================================
+/**
+ * The <code>VectorEngine</code> class.  Evolve a universe held as flat arrays
+ * of bytes, as in <code>ArrayEngine</code>, but sum the neighbors and apply
+ * the rules to a whole vector of cells at a time, with the incubating JDK
+ * Vector API.  The cells left over at the end of each row, too few to fill a
+ * vector, are evolved one at a time.
+ *
+ * The Vector API lives in the <code>jdk.incubator.vector</code> module,
+ * which the JVM must be started with (<code>--add-modules
+ * jdk.incubator.vector</code>).  Without it, this class cannot even be
+ * initialized, so <code>Game</code> checks for the module first and falls
+ * back on the scalar <code>ArrayEngine</code>.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+// =============================================================================
+
+
+
+// =============================================================================
+public class VectorEngine implements Engine {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a universe of initially-dead cells, evolved by
+     * a single thread.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     **/
+    public VectorEngine (int rows, int columns) {
+
+        this(rows, columns, new Bands(1), Rule.CONWAY);
+
+    } // VectorEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The specialized constructor.  Create a universe of initially-dead
+     * cells, evolved in parallel bands of rows by the given rule.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param bands The bands that share the work of each generation.
+     * @param rule The rule by which the cells live and die.
+     **/
+    public VectorEngine (int rows, int columns, Bands bands, Rule rule) {
+
+        // Ensure that the sizes are valid, and that the cells and their
+        // border fit in one array.
+        if ((rows <= 0) || (columns <= 0) ||
+            ((long)(rows + 2) * (columns + 2) > Integer.MAX_VALUE - 8)) {
+            Support.abort("Cannot construct a grid of size " +
+                          rows +
+                          ", " +
+                          columns);
+        }
+
+        _rows    = rows;
+        _columns = columns;
+        _stride  = columns + 2;
+        _current = new byte[(rows + 2) * _stride];
+        _next    = new byte[(rows + 2) * _stride];
+        _bands   = bands;
+        _births  = new int[rows];
+        _deaths  = new int[rows];
+        _rule    = rule.getSumMask();
+
+        // Spread the rule across the lanes of two vectors, indexed by the sum
+        // of a dead cell or of a live one.
+        byte[] dead = new byte[_species.length()];
+        byte[] live = new byte[_species.length()];
+        for (int sum = 0; (sum < 10) && (sum < dead.length); sum += 1) {
+            dead[sum] = (byte)((_rule >>> sum) & 1);
+            live[sum] = (byte)((_rule >>> (10 + sum)) & 1);
+        }
+        _deadTable = ByteVector.fromArray(_species, dead, 0);
+        _liveTable = ByteVector.fromArray(_species, live, 0);
+
+    } // VectorEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getRows () {
+
+        return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getColumns () {
+
+        return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public boolean isAlive (int row, int column) {
+
+        return _current[index(row, column)] != 0;
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a rectangle by summing each row's cells, which
+     * are 1 when alive.
+     **/
+    public long getPopulation (int top, int left, int rows, int columns) {
+
+        long count = 0;
+        for (int row = top; row < top + rows; row += 1) {
+            int start = index(row, left);
+            int sum   = 0;
+            for (int i = start; i < start + columns; i += 1) {
+                sum += _current[i];
+            }
+            count += sum;
+        }
+
+        return count;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void makeAlive (int row, int column) {
+
+        int index = index(row, column);
+        if (_current[index] == 0) {
+            _population += 1;
+        }
+        _current[index] = 1;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation into the second array.  Each band of
+     * rows reads only the current generation and writes only its own rows of
+     * the next.
+     **/
+    public void evolve () {
+
+        _bands.run(_rows, (first, last) -> {
+                for (int row = first; row < last; row += 1) {
+                    evolveRow(row);
+                }
+            });
+
+        long births = 0;
+        long deaths = 0;
+        for (int row = 0; row < _rows; row += 1) {
+            births += _births[row];
+            deaths += _deaths[row];
+        }
+        _nextBirths = births;
+        _nextDeaths = deaths;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of one row, a vector of cells at a time.
+     * Each of the nine cells around a cell, itself included, is loaded as a
+     * vector shifted by its offset, so that one lane holds one cell's sum.
+     *
+     * @param row The row to evolve.
+     **/
+    private void evolveRow (int row) {
+
+        int above  = row * _stride;
+        int middle = above  + _stride;
+        int below  = middle + _stride;
+        int births = 0;
+        int deaths = 0;
+
+        // Each vector starts at the cell to the west of the first cell it
+        // evolves, which is the ghost cell for the first vector of a row.
+        // Vectors too short to hold every sum leave the row to the scalar
+        // loop.
+        int bound = (_species.length() >= 10) ? _species.loopBound(_columns)
+                                              : 0;
+        for (int column = 0; column < bound; column += _species.length()) {
+
+            ByteVector sum = row(above + column).add(row(middle + column))
+                                                .add(row(below + column));
+            ByteVector alive = ByteVector.fromArray(_species, _current,
+                                                    middle + column + 1);
+
+            // The sum includes the cell itself; look up the fate of each
+            // lane's sum in the table for a dead cell or a live one.
+            VectorMask<Byte> living = alive.compare(VectorOperators.EQ, 1);
+            ByteVector       next   =
+                sum.selectFrom(_deadTable)
+                   .blend(sum.selectFrom(_liveTable), living);
+            next.intoArray(_next, middle + column + 1);
+
+            VectorMask<Byte> lives = next.compare(VectorOperators.EQ, 1);
+            births += lives.andNot(living).trueCount();
+            deaths += living.andNot(lives).trueCount();
+
+        }
+
+        // Evolve the rest of the row one cell at a time.
+        for (int cell = middle + bound + 1; cell <= middle + _columns;
+             cell += 1) {
+
+            int alive = _current[cell];
+            int sum   = _current[cell - _stride - 1] +
+                        _current[cell - _stride]     +
+                        _current[cell - _stride + 1] +
+                        _current[cell - 1]           +
+                        alive                        +
+                        _current[cell + 1]           +
+                        _current[cell + _stride - 1] +
+                        _current[cell + _stride]     +
+                        _current[cell + _stride + 1];
+            int next  = (_rule >>> (alive * 10 + sum)) & 1;
+
+            _next[cell] = (byte)next;
+            births += next & ~alive;
+            deaths += alive & ~next;
+
+        }
+
+        _births[row] = births;
+        _deaths[row] = deaths;
+
+    } // evolveRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Sum three adjacent cells of a row for each lane of a vector.
+     *
+     * @param start The index of the west cell for the first lane.
+     * @return The sums of the west, center, and east cells of each lane.
+     **/
+    private ByteVector row (int start) {
+
+        return ByteVector.fromArray(_species, _current, start)
+                         .add(ByteVector.fromArray(_species, _current,
+                                                   start + 1))
+                         .add(ByteVector.fromArray(_species, _current,
+                                                   start + 2));
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the next generation by swapping the two arrays.
+     **/
+    public void advance () {
+
+        if (_listener != null) {
+            reportChanges();
+        }
+
+        byte[] swap = _current;
+        _current = _next;
+        _next = swap;
+
+        _population += _nextBirths - _nextDeaths;
+        _lastBirths  = _nextBirths;
+        _lastDeaths  = _nextDeaths;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the listener about every cell that differs between the current and
+     * next generations.  Only the rows with a birth or death are examined.
+     **/
+    private void reportChanges () {
+
+        for (int row = 0; row < _rows; row += 1) {
+            if ((_births[row] != 0) || (_deaths[row] != 0)) {
+                int start = index(row, 0);
+                for (int column = 0; column < _columns; column += 1) {
+                    byte next = _next[start + column];
+                    if (next != _current[start + column]) {
+                        _listener.cellChanged(row, column, next != 0);
+                    }
+                }
+            }
+        }
+
+    } // reportChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void setChangeListener (ChangeListener listener) {
+
+        _listener = listener;
+
+    } // setChangeListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getPopulation () {
+
+        return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getBirths () {
+
+        return _lastBirths;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getDeaths () {
+
+        return _lastDeaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find a cell in the arrays, past the border of ghost cells.
+     **/
+    private int index (int row, int column) {
+
+        return (row + 1) * _stride + column + 1;
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The shape of the vectors:  as many bytes as the hardware handles best.
+     **/
+    private final static VectorSpecies<Byte> _species =
+        ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * The rule for the cells evolved one at a time, as in
+     * <code>ArrayEngine</code>:  bit <i>s</i> for a dead cell, and bit 10 +
+     * <i>s</i> for a live one, where <i>s</i> counts the cell itself.
+     **/
+    private final int _rule;
+
+    /**
+     * The next state of a dead cell, in the lane of its sum.
+     **/
+    private final ByteVector _deadTable;
+
+    /**
+     * The next state of a live cell, in the lane of its sum.
+     **/
+    private final ByteVector _liveTable;
+
+    /**
+     * The number of rows in the universe.
+     **/
+    private final int _rows;
+
+    /**
+     * The number of columns in the universe.
+     **/
+    private final int _columns;
+
+    /**
+     * The distance between rows in the arrays, including the ghost cells.
+     **/
+    private final int _stride;
+
+    /**
+     * The current generation, 1 for a live cell and 0 for a dead one, with
+     * a border of ghost cells.
+     **/
+    private byte[] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private byte[] _next;
+
+    /**
+     * The bands that share the work of each generation.
+     **/
+    private final Bands _bands;
+
+    /**
+     * The number of cells born in each row, for the bands to fill in without
+     * sharing a counter.
+     **/
+    private final int[] _births;
+
+    /**
+     * The number of cells that die in each row.
+     **/
+    private final int[] _deaths;
+
+    /**
+     * The number of cells born in the next generation.
+     **/
+    private long _nextBirths;
+
+    /**
+     * The number of cells that die in the next generation.
+     **/
+    private long _nextDeaths;
+
+    /**
+     * The number of cells born in the last generation.
+     **/
+    private long _lastBirths;
+
+    /**
+     * The number of cells that died in the last generation.
+     **/
+    private long _lastDeaths;
+
+    /**
+     * The number of live cells in the current generation.
+     **/
+    private long _population;
+
+    /**
+     * The listener told about births and deaths, if any.
+     **/
+    private ChangeListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class VectorEngine
+// =============================================================================
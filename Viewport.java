@@ -0,0 +1,447 @@
+// =============================================================================
+/**
+ * The <code>Viewport</code> class.  An immutable description of the part of
+ * the universe that a window shows:  the cell at its top-left corner, its
+ * size in pixels, and its zoom.  A zoom of <i>z</i> &ge; 0 draws each cell as
+ * a box 2<sup><i>z</i></sup> pixels wide; a zoom of <i>z</i> &lt; 0 draws each
+ * block of 2<sup>-<i>z</i></sup> by 2<sup>-<i>z</i></sup> cells as a single
+ * pixel, shaded by the density of live cells in the block.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public final class Viewport {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param top The row of the cell at the top-left corner.
+     * @param left The column of the cell at the top-left corner.
+     * @param zoom The zoom, as a power of two.
+     * @param width The width of the window, in pixels.
+     * @param height The height of the window, in pixels.
+     **/
+    public Viewport (int top, int left, int zoom, int width, int height) {
+
+        if ((zoom > MAX_ZOOM) || (zoom < MIN_ZOOM) ||
+            (width <= 0) || (height <= 0)) {
+            Support.abort("ERROR: Invalid viewport: zoom " + zoom +
+                          ", size " + width + " by " + height);
+        }
+
+        _top    = top;
+        _left   = left;
+        _zoom   = zoom;
+        _width  = width;
+        _height = height;
+
+    } // Viewport ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the zoom that fits a whole board into a window no larger than
+     * the given size, with boxes no larger than 2<sup><i>maxZoom</i></sup>
+     * pixels.
+     *
+     * @param rows The number of rows on the board.
+     * @param columns The number of columns on the board.
+     * @param maxSize The largest width or height of the window, in pixels.
+     * @param maxZoom The largest zoom to use.
+     * @return The zoom.
+     **/
+    public static int fit (int rows, int columns, int maxSize, int maxZoom) {
+
+        int largest = Math.max(rows, columns);
+        int zoom    = maxZoom;
+        while ((zoom > MIN_ZOOM) && (cells(maxSize, zoom) < largest)) {
+            zoom -= 1;
+        }
+
+        return zoom;
+
+    } // fit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getTop () {
+
+        return _top;
+
+    } // getTop ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getLeft () {
+
+        return _left;
+
+    } // getLeft ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getZoom () {
+
+        return _zoom;
+
+    } // getZoom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getWidth () {
+
+        return _width;
+
+    } // getWidth ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int getHeight () {
+
+        return _height;
+
+    } // getHeight ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the width and height of each cell's box.
+     *
+     * @return The number of pixels per cell, or 1 when zoomed out.
+     **/
+    public int getBoxSize () {
+
+        return (_zoom >= 0) ? (1 << _zoom) : 1;
+
+    } // getBoxSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the width and height of the block of cells in each pixel.
+     *
+     * @return The number of cells per pixel, or 1 when zoomed in.
+     **/
+    public int getBlockSize () {
+
+        return (_zoom < 0) ? (1 << -_zoom) : 1;
+
+    } // getBlockSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows of cells that the window covers, counting
+     * a row that is only partly visible.
+     *
+     * @return The number of rows covered.
+     **/
+    public int getRows () {
+
+        return cells(_height, _zoom);
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns of cells that the window covers.
+     *
+     * @return The number of columns covered.
+     **/
+    public int getColumns () {
+
+        return cells(_width, _zoom);
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the view by a number of pixels, as when it is dragged.  The view
+     * moves in whole cells, or in whole blocks when zoomed out.
+     *
+     * @param dx The distance to drag the board to the right.
+     * @param dy The distance to drag the board down.
+     * @return The moved viewport.
+     **/
+    public Viewport moveBy (int dx, int dy) {
+
+        return new Viewport(toInt(_top  - offset(dy)),
+                            toInt(_left - offset(dx)),
+                            _zoom,
+                            _width,
+                            _height);
+
+    } // moveBy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Zoom in or out around a pixel, keeping the cell under that pixel in
+     * place.
+     *
+     * @param steps The number of times to double the zoom, or to halve it
+     *              if negative.
+     * @param x The column of the pixel.
+     * @param y The row of the pixel.
+     * @return The zoomed viewport.
+     **/
+    public Viewport zoomAt (int steps, int x, int y) {
+
+        int  zoom   = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, _zoom + steps));
+        long row    = _top  + offset(y);
+        long column = _left + offset(x);
+        Viewport zoomed = new Viewport(0, 0, zoom, _width, _height);
+
+        return new Viewport(toInt(row    - zoomed.offset(y)),
+                            toInt(column - zoomed.offset(x)),
+                            zoom,
+                            _width,
+                            _height);
+
+    } // zoomAt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Change the size of the window, keeping the same top-left cell.
+     *
+     * @param width The new width, in pixels.
+     * @param height The new height, in pixels.
+     * @return The resized viewport.
+     **/
+    public Viewport resize (int width, int height) {
+
+        return new Viewport(_top, _left, _zoom, width, height);
+
+    } // resize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the view on a board.  The zoom goes no further out than needed to
+     * show the whole board.  A board larger than the view is kept within it;
+     * a smaller one is centered.  When zoomed out, the corner is aligned to a
+     * whole block.
+     *
+     * @param rows The number of rows on the board.
+     * @param columns The number of columns on the board.
+     * @return The adjusted viewport.
+     **/
+    public Viewport clampTo (int rows, int columns) {
+
+        int zoom = Math.max(_zoom, Math.min(0, fitZoom(rows, columns)));
+        Viewport view = new Viewport(0, 0, zoom, _width, _height);
+        int block = view.getBlockSize();
+        int top   = clamp(_top,  rows,    view.getRows(),    block);
+        int left  = clamp(_left, columns, view.getColumns(), block);
+
+        return new Viewport(top, left, zoom, _width, _height);
+
+    } // clampTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compare two viewports.
+     *
+     * @return <code>true</code> if the other viewport shows the same cells in
+     *         the same way.
+     **/
+    public boolean equals (Object other) {
+
+        if (!(other instanceof Viewport)) {
+            return false;
+        }
+        Viewport view = (Viewport)other;
+
+        return ((_top    == view._top)   &&
+                (_left   == view._left)  &&
+                (_zoom   == view._zoom)  &&
+                (_width  == view._width) &&
+                (_height == view._height));
+
+    } // equals ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int hashCode () {
+
+        return (((_top * 31 + _left) * 31 + _zoom) * 31 + _width) * 31 +
+               _height;
+
+    } // hashCode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Convert a distance in pixels to a distance in cells, rounding toward
+     * negative infinity.
+     **/
+    private long offset (int pixels) {
+
+        return (_zoom >= 0) ? Math.floorDiv(pixels, 1 << _zoom)
+                            : (long)pixels << -_zoom;
+
+    } // offset ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Narrow a coordinate to an <code>int</code>, saturating at the limits.
+     **/
+    private static int toInt (long value) {
+
+        return (int)Math.max(Integer.MIN_VALUE,
+                             Math.min(Integer.MAX_VALUE, value));
+
+    } // toInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the zoom at which the whole board fits in this window.
+     **/
+    private int fitZoom (int rows, int columns) {
+
+        int zoom = MAX_ZOOM;
+        while ((zoom > MIN_ZOOM) &&
+               ((cells(_height, zoom) < rows) ||
+                (cells(_width, zoom) < columns))) {
+            zoom -= 1;
+        }
+
+        return zoom;
+
+    } // fitZoom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that a span of pixels covers at a zoom.
+     **/
+    private static int cells (int pixels, int zoom) {
+
+        if (zoom >= 0) {
+            return (pixels + (1 << zoom) - 1) >> zoom;
+        }
+
+        return (int)Math.min(Integer.MAX_VALUE, (long)pixels << -zoom);
+
+    } // cells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the first visible cell of one axis on the board, aligned to the
+     * block size.
+     **/
+    private static int clamp (int first, int cells, int visible, int block) {
+
+        if (visible >= cells) {
+            first = -((visible - cells) / 2);
+        } else {
+            first = Math.max(0, Math.min(first, cells - visible));
+        }
+
+        return Math.floorDiv(first, block) * block;
+
+    } // clamp ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The largest zoom, at which each cell is 32 pixels wide.
+     **/
+    public final static int MAX_ZOOM = 5;
+
+    /**
+     * The smallest zoom, at which each pixel shows a block of 2<sup>30</sup>
+     * by 2<sup>30</sup> cells.
+     **/
+    public final static int MIN_ZOOM = -30;
+
+    /**
+     * The row of the cell at the top-left corner.
+     **/
+    private final int _top;
+
+    /**
+     * The column of the cell at the top-left corner.
+     **/
+    private final int _left;
+
+    /**
+     * The zoom, as a power of two.
+     **/
+    private final int _zoom;
+
+    /**
+     * The width of the window, in pixels.
+     **/
+    private final int _width;
+
+    /**
+     * The height of the window, in pixels.
+     **/
+    private final int _height;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Viewport
+// =============================================================================
@@ -0,0 +1,506 @@
+// =============================================================================
+/**
+ * The <code>StepBenchmark</code> class.  Measure how quickly each engine
+ * evolves a <code>Game</code>, across board sizes and initial densities.
+ * Every measurement starts from a freshly seeded board, so that it sees the
+ * density named by the seed; a game left to run for a whole trial would
+ * burn out long before the first measurement, and the engines that skip
+ * quiet regions would then be timed on ash.
+ *
+ * <code>step</code> times a batch of <code>GENERATIONS</code> generations
+ * from a board seeded for each iteration.  <code>batch</code> evolves such
+ * batches over and over, each from a board seeded for it outside the timed
+ * region, and reports both the batches per second and, as the secondary
+ * result <code>batch:cells</code>, the cells evolved per second:  the
+ * <code>size</code><sup>2</sup> cells of the board for each generation,
+ * whatever the engine, so that the engines can be compared directly.
+ *
+ * JMH will not generate code for a benchmark in the default package, while
+ * the game's classes live there and cannot be named from any other package.
+ * The game is therefore reached through method handles, looked up once per
+ * trial; calling an exactly-typed handle costs a few nanoseconds at most.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+package life.bench;
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+// =============================================================================
+
+
+
+// =============================================================================
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class StepBenchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PARAMETERS
+
+    /**
+     * The number of rows and of columns on the board.
+     **/
+    @Param({"64", "256", "1024", "4096", "16384"})
+    public int size;
+
+    /**
+     * The initial state:  a sparse random soup, the shipped
+     * <code>myconfig.init</code> or <code>X-pattern.init</code> tiled across
+     * the board, or a random board that is half alive.
+     **/
+    @Param({"soup", "myconfig", "xpattern", "random"})
+    public String seed;
+
+    /**
+     * The stepping engine, as given to the <code>engine=</code> option.
+     **/
+    @Param({"Cell", "Table", "Array", "Vector", "Bit", "OffHeap", "Sparse",
+            "HashLife"})
+    public String engine;
+
+    /**
+     * The number of threads, as given to the <code>threads=</code> option.
+     **/
+    @Param({"1", "4"})
+    public int threads;
+
+    /**
+     * The rule, as given to the <code>rule=</code> option:  Conway's, and
+     * HighLife, which every engine should step just as quickly.
+     **/
+    @Param({"B3/S23", "B36/S23"})
+    public String rule;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Look up the game's methods, once for the trial.
+     **/
+    @Setup(Level.Trial)
+    public void setUp () throws Throwable {
+
+        skipIfTooLarge();
+
+        MethodHandles.Lookup lookup  = MethodHandles.publicLookup();
+        Class<?>             options = Class.forName("Options");
+        Class<?>             game    = Class.forName("Game");
+
+        _settings = lookup
+            .findConstructor(options,
+                             MethodType.methodType(void.class,
+                                                   String[].class,
+                                                   int.class))
+            .invoke(new String[] { "engine=" + engine,
+                                   "threads=" + threads,
+                                   "rule=" + rule },
+                    0);
+        _newGame = lookup
+            .findConstructor(game,
+                             MethodType.methodType(void.class,
+                                                   int.class,
+                                                   int.class,
+                                                   options))
+            .asType(MethodType.methodType(Object.class,
+                                          int.class,
+                                          int.class,
+                                          Object.class));
+        _close = lookup
+            .findVirtual(game, "close", MethodType.methodType(void.class))
+            .asType(MethodType.methodType(void.class, Object.class));
+
+        _evolve = lookup
+            .findVirtual(game, "evolve", MethodType.methodType(void.class))
+            .asType(MethodType.methodType(void.class, Object.class));
+        _makeAlive = lookup
+            .findVirtual(game, "makeAlive",
+                         MethodType.methodType(void.class,
+                                               int.class,
+                                               int.class))
+            .asType(MethodType.methodType(void.class,
+                                          Object.class,
+                                          int.class,
+                                          int.class));
+
+    } // setUp ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The game evolved by <code>step</code>, seeded afresh for each
+     * iteration.
+     **/
+    @State(Scope.Thread)
+    public static class IterationGame {
+
+        @Setup(Level.Iteration)
+        public void seed (StepBenchmark benchmark) throws Throwable {
+
+            _game = benchmark.newSeededGame();
+
+        } // seed ()
+
+        @TearDown(Level.Iteration)
+        public void tearDown (StepBenchmark benchmark) throws Throwable {
+
+            benchmark._close.invokeExact(_game);
+            _game = null;
+
+        } // tearDown ()
+
+        /**
+         * The game, an instance of <code>Game</code>.
+         **/
+        private Object _game;
+
+    } // class IterationGame
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The game evolved by <code>batch</code>, seeded afresh for each
+     * invocation.
+     **/
+    @State(Scope.Thread)
+    public static class InvocationGame {
+
+        @Setup(Level.Invocation)
+        public void seed (StepBenchmark benchmark) throws Throwable {
+
+            _game = benchmark.newSeededGame();
+
+        } // seed ()
+
+        @TearDown(Level.Invocation)
+        public void tearDown (StepBenchmark benchmark) throws Throwable {
+
+            benchmark._close.invokeExact(_game);
+            _game = null;
+
+        } // tearDown ()
+
+        /**
+         * The game, an instance of <code>Game</code>.
+         **/
+        private Object _game;
+
+    } // class InvocationGame
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The cells evolved by <code>batch</code>, which JMH reports per second
+     * as a secondary result.
+     **/
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cells {
+
+        @Setup(Level.Iteration)
+        public void reset () {
+
+            cells = 0;
+
+        } // reset ()
+
+        /**
+         * The number of cells evolved in this iteration.
+         **/
+        public long cells;
+
+    } // class Cells
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evolve the game by one generation, one of a batch of
+     * <code>GENERATIONS</code>.
+     **/
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = GENERATIONS)
+    @Measurement(iterations = 10, batchSize = GENERATIONS)
+    public void step (IterationGame game) throws Throwable {
+
+        _evolve.invokeExact(game._game);
+
+    } // step ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evolve a freshly seeded game by <code>GENERATIONS</code> generations,
+     * counting the cells evolved.
+     **/
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 5, time = 2)
+    @Measurement(iterations = 10, time = 2)
+    public void batch (InvocationGame game, Cells cells) throws Throwable {
+
+        for (int generation = 0; generation < GENERATIONS; generation += 1) {
+            _evolve.invokeExact(game._game);
+        }
+        cells.cells += (long)size * size * GENERATIONS;
+
+    } // batch ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build a new game and seed its initial state.
+     *
+     * @return The game, an instance of <code>Game</code>.
+     **/
+    private Object newSeededGame () throws Throwable {
+
+        Object game = (Object)_newGame.invokeExact(size, size, _settings);
+        if (seed.equals("soup")) {
+            seedRandom(game, _soupDensity);
+        } else if (seed.equals("random")) {
+            seedRandom(game, 0.5);
+        } else if (seed.equals("myconfig")) {
+            seedPattern(game, "myconfig.init");
+        } else if (seed.equals("xpattern")) {
+            seedPattern(game, "X-pattern.init");
+        } else {
+            throw new IllegalArgumentException("Unknown seed: " + seed);
+        }
+
+        return game;
+
+    } // newSeededGame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Refuse the combinations that cannot fit in a reasonable heap, so that
+     * a full sweep reports them as failed instead of running out of memory.
+     **/
+    private void skipIfTooLarge () {
+
+        double density = seed.equals("random") ? 0.5 :
+                         seed.equals("soup")   ? _soupDensity :
+                                                 _patternDensity;
+        double live = density * size * size;
+
+        if (engine.equals("Cell") && (size > _maxCellEngineSize)) {
+            throw new IllegalStateException("Skipped: the Cell engine needs " +
+                                            "an object per cell");
+        }
+        if ((engine.equals("Sparse") || engine.equals("HashLife")) &&
+            (live > _maxSparseCells)) {
+            throw new IllegalStateException("Skipped: too many live cells " +
+                                            "for the " + engine + " engine");
+        }
+
+    } // skipIfTooLarge ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring cells to life at random with the given probability.
+     **/
+    private void seedRandom (Object game, double density) throws Throwable {
+
+        Random random = new Random(_randomSeed);
+        for (int row = 0; row < size; row += 1) {
+            for (int column = 0; column < size; column += 1) {
+                if (random.nextDouble() < density) {
+                    _makeAlive.invokeExact(game, row, column);
+                }
+            }
+        }
+
+    } // seedRandom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tile the board with copies of a shipped initial-state file.  Blank
+     * lines, such as those at the end of <code>myconfig.init</code>, are
+     * skipped.
+     **/
+    private void seedPattern (Object game, String name) throws Throwable {
+
+        List<String> lines   = Files.readAllLines(findPattern(name));
+        String[]     header  = lines.get(0).trim().split("\\s+");
+        int          rows    = Integer.parseInt(header[0]);
+        int          columns = Integer.parseInt(header[1]);
+
+        int   count = 0;
+        int[] cells = new int[(lines.size() - 1) * 2];
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.trim().split("\\s+");
+            cells[count * 2]     = Integer.parseInt(fields[0]);
+            cells[count * 2 + 1] = Integer.parseInt(fields[1]);
+            count += 1;
+        }
+
+        for (int top = 0; top < size; top += rows) {
+            for (int left = 0; left < size; left += columns) {
+                for (int i = 0; i < count; i += 1) {
+                    int row    = top  + cells[i * 2];
+                    int column = left + cells[i * 2 + 1];
+                    if ((row < size) && (column < size)) {
+                        _makeAlive.invokeExact(game, row, column);
+                    }
+                }
+            }
+        }
+
+    } // seedPattern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find a shipped initial-state file from either the project directory or
+     * the benchmarks directory.
+     **/
+    private static Path findPattern (String name) throws IOException {
+
+        for (String directory : new String[] { ".", ".." }) {
+            Path path = Paths.get(directory, name);
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+
+        throw new IOException("Cannot find " + name +
+                              "; run from the project directory");
+
+    } // findPattern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of generations timed in each iteration, from the seed.
+     **/
+    final static int GENERATIONS = 100;
+
+    /**
+     * The fraction of cells alive in a sparse soup.
+     **/
+    private final static double _soupDensity = 0.03;
+
+    /**
+     * Roughly the fraction of cells alive in the shipped patterns.
+     **/
+    private final static double _patternDensity = 0.2;
+
+    /**
+     * The largest board for the Cell engine, which needs an object per cell.
+     **/
+    private final static int _maxCellEngineSize = 4096;
+
+    /**
+     * The most live cells for the engines whose memory follows population.
+     **/
+    private final static double _maxSparseCells = 16e6;
+
+    /**
+     * The seed for random boards, fixed so that every run sees the same
+     * board.
+     **/
+    private final static long _randomSeed = 112;
+
+    /**
+     * The settings for every game of the trial, an instance of
+     * <code>Options</code>.
+     **/
+    private Object _settings;
+
+    /**
+     * <code>new Game(int, int, Options)</code>, typed to take and return
+     * <code>Object</code>.
+     **/
+    private MethodHandle _newGame;
+
+    /**
+     * <code>Game.close()</code>, typed to take an <code>Object</code>.
+     **/
+    private MethodHandle _close;
+
+    /**
+     * <code>Game.evolve()</code>, typed to take an <code>Object</code>.
+     **/
+    private MethodHandle _evolve;
+
+    /**
+     * <code>Game.makeAlive(int, int)</code>, typed to take an
+     * <code>Object</code>.
+     **/
+    private MethodHandle _makeAlive;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StepBenchmark
+// =============================================================================